@@ -0,0 +1,28 @@
+package addy.processor;
+
+import javax.lang.model.element.Element;
+import java.util.List;
+
+/**
+ * A service found at compile time, used to validate the dependency graph.
+ */
+class ServiceNode
+{
+    final String name;
+    final List<String> dependencies;
+    final Element element;
+
+    ServiceNode(final String name,
+                final List<String> dependencies,
+                final Element element)
+    {
+        this.name = name;
+        this.dependencies = dependencies;
+        this.element = element;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,557 @@
+package addy.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates the services of every @Configuration class at compile time and generates
+ * a ServiceWiring class next to each of them, such that the Injector can register and
+ * create the services without reflection.
+ *
+ * The graph is checked for duplicate service names, unknown dependencies and dependency
+ * cycles. Services registered manually at runtime are unknown to the processor, pass
+ * -Aaddy.allowUnknownDependencies=true to report unknown dependencies as warnings.
+ */
+@SupportedAnnotationTypes(WiringProcessor.CONFIGURATION)
+@SupportedOptions(WiringProcessor.ALLOW_UNKNOWN_DEPENDENCIES)
+public class WiringProcessor
+        extends
+        AbstractProcessor
+{
+    public static final String ALLOW_UNKNOWN_DEPENDENCIES = "addy.allowUnknownDependencies";
+
+    static final String CONFIGURATION = "addy.annotations.Configuration";
+    static final String SERVICE = "addy.annotations.Service";
+    static final String SERVICE_LINKER = "addy.annotations.ServiceLinker";
+    static final String DEP_WIRE = "addy.annotations.DepWire";
+    static final String INJECT = "addy.annotations.Inject";
+    static final String LAZY = "addy.annotations.Lazy";
+    static final String SUPPLIER = "java.util.function.Supplier";
+    static final String COMPLETION_STAGE = "java.util.concurrent.CompletionStage";
+    static final String COMPLETABLE_FUTURE = "java.util.concurrent.CompletableFuture";
+
+    // must match addy.ServiceWiring and addy.context.ServiceContext
+    static final String WIRING_SUFFIX = "_AddyWiring";
+    static final String SERVICE_CONTEXT = "service-context";
+
+    private final List<ServiceNode> services;
+
+    // set when a parameter of the current configuration is injected as a Supplier
+    private boolean deferred;
+    // set when a parameter of the current configuration is injected by type
+    private boolean byType;
+
+    public WiringProcessor() {
+        this.services = new ArrayList<>();
+        this.deferred = false;
+        this.byType = false;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment round)
+    {
+        TypeElement configuration = this.processingEnv.getElementUtils().getTypeElement(CONFIGURATION);
+        if (configuration != null) {
+            for (Element element : round.getElementsAnnotatedWith(configuration)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    this.processConfiguration((TypeElement) element);
+                }
+            }
+        }
+
+        if (round.processingOver()) {
+            this.validate();
+        }
+
+        return false;
+    }
+
+    // ########################################################################################
+    // ###
+    // ### Discovery
+    // ###
+    // ########################################################################################
+
+    private void processConfiguration(final TypeElement config) {
+        boolean valid = true;
+        this.deferred = false;
+        this.byType = false;
+        if (config.getModifiers().contains(Modifier.PRIVATE) || config.getModifiers().contains(Modifier.ABSTRACT)) {
+            this.error("@Configuration class must be instantiable", config);
+            valid = false;
+        }
+        if (config.getNestingKind().isNested() && !config.getModifiers().contains(Modifier.STATIC)) {
+            this.error("nested @Configuration class must be static", config);
+            valid = false;
+        }
+
+        List<String> services = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(config.getEnclosedElements())) {
+            AnnotationMirror service = this.getAnnotation(method, SERVICE);
+            if (service == null) {
+                continue;
+            }
+
+            String name = this.getServiceName(service, method.getSimpleName().toString(), method);
+            if (name == null) {
+                valid = false;
+                continue;
+            }
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                this.error("@Service method must not be private: " + name, method);
+                valid = false;
+                continue;
+            }
+
+            List<String> dependencies = this.getDependencies(method);
+            if (dependencies == null) {
+                valid = false;
+                continue;
+            }
+            this.services.add(new ServiceNode(name, dependencies, method));
+
+            String target = method.getModifiers().contains(Modifier.STATIC)
+                    ? this.qualifiedName(config) + "." + method.getSimpleName()
+                    : "((" + this.qualifiedName(config) + ") instance)." + method.getSimpleName();
+            String call = target + "(" + this.arguments(method) + ")";
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                call = "{ " + call + "; return null; }";
+            }
+            services.add(this.registration(name, this.serviceType(method.getReturnType()), dependencies,
+                    this.getAnnotation(method, LAZY) != null, this.getEnumValue(service, "scope"), call, "configuration"));
+        }
+
+        List<String> linkedServices = new ArrayList<>();
+        AnnotationMirror linker = this.getAnnotation(config, SERVICE_LINKER);
+        if (linker != null) {
+            for (AnnotationValue value : this.getArrayValue(linker, "value")) {
+                TypeElement linked = (TypeElement) ((DeclaredType) value.getValue()).asElement();
+                String registration = this.processLinkedService(config, linked);
+                if (registration == null) {
+                    valid = false;
+                } else if (!registration.isEmpty()) {
+                    linkedServices.add(registration);
+                }
+            }
+        }
+
+        if (valid && this.deferred) {
+            // deferred dependencies are only wired through reflection
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "no wiring generated, a service takes a Supplier", config);
+        } else if (valid && this.byType) {
+            // services are only found by type, and collected into multibindings, through reflection
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "no wiring generated, a service is injected by type", config);
+        } else if (valid) {
+            this.writeWiring(config, services, linkedServices);
+        }
+    }
+
+    /**
+     * @return the registration code, empty if the class is not a service or null on errors
+     */
+    private String processLinkedService(final TypeElement config, final TypeElement linked) {
+        AnnotationMirror service = this.getAnnotation(linked, SERVICE);
+        if (service == null) {
+            return "";
+        }
+
+        String name = this.getServiceName(service, linked.getSimpleName().toString(), linked);
+        if (name == null) {
+            return null;
+        }
+
+        ExecutableElement constructor = null;
+        for (ExecutableElement candidate : ElementFilter.constructorsIn(linked.getEnclosedElements())) {
+            if (candidate.getModifiers().contains(Modifier.PUBLIC) && this.getAnnotation(candidate, DEP_WIRE) != null) {
+                constructor = candidate;
+                break;
+            }
+        }
+        if (constructor == null) {
+            this.error("No public constructor with @DepWire found for " + name, linked);
+            return null;
+        }
+        if (!linked.getModifiers().contains(Modifier.PUBLIC)
+                && !this.packageOf(linked).equals(this.packageOf(config))) {
+            this.error("@Service class linked from another package must be public: " + name, linked);
+            return null;
+        }
+
+        List<String> dependencies = this.getDependencies(constructor);
+        if (dependencies == null) {
+            return null;
+        }
+        this.services.add(new ServiceNode(name, dependencies, linked));
+
+        return this.registration(name, this.qualifiedName(linked) + ".class", dependencies, this.getAnnotation(linked, LAZY) != null,
+                this.getEnumValue(service, "scope"), "new " + this.qualifiedName(linked) + "(" + this.arguments(constructor) + ")", "null");
+    }
+
+    /**
+     * Same rules as the Injector, name is preferred over value and the element name
+     * is used when neither is set.
+     *
+     * @return lower case service name, or null if the name and value attributes disagree
+     */
+    private String getServiceName(final AnnotationMirror service, final String fallback, final Element element) {
+        String name = this.getStringValue(service, "name");
+        String value = this.getStringValue(service, "value");
+
+        if (!name.isEmpty() && !value.isEmpty() && !name.equals(value) && element.getKind() == ElementKind.METHOD) {
+            this.error("different names suggested for service when only one or zero is expected: " + name + ", " + value, element);
+            return null;
+        }
+
+        if (!name.isEmpty()) {
+            return name.toLowerCase();
+        } else if (!value.isEmpty()) {
+            return value.toLowerCase();
+        }
+
+        return fallback.toLowerCase();
+    }
+
+    /**
+     * @return the lower case @Inject names of every parameter, or null if a parameter is not injectable.
+     * Parameters injected as a Supplier are left out, they don't order the services, and so are
+     * parameters injected by type, which are only known once every service is registered.
+     */
+    private List<String> getDependencies(final ExecutableElement executable) {
+        List<String> dependencies = new ArrayList<>();
+        for (VariableElement param : executable.getParameters()) {
+            AnnotationMirror inject = this.getAnnotation(param, INJECT);
+            if (inject == null) {
+                this.error("parameter must be annotated with @Inject: " + param.getSimpleName(), param);
+                return null;
+            }
+
+            String name = this.getStringValue(inject, "value");
+            if (name.isEmpty()) {
+                // the Injector resolves it by type, or to every service of a type for a T[] or List<T>
+                this.byType = true;
+                continue;
+            }
+            if (this.processingEnv.getTypeUtils().erasure(param.asType()).toString().equals(SUPPLIER)) {
+                this.deferred = true;
+                continue;
+            }
+            dependencies.add(name.toLowerCase());
+        }
+
+        return dependencies;
+    }
+
+    // ########################################################################################
+    // ###
+    // ### Validation
+    // ###
+    // ########################################################################################
+
+    private void validate() {
+        Map<String, ServiceNode> graph = new LinkedHashMap<>();
+        for (ServiceNode service : this.services) {
+            ServiceNode existing = graph.putIfAbsent(service.name, service);
+            if (existing != null) {
+                this.error("found duplicate @Service: " + service.name, service.element);
+            }
+        }
+
+        boolean allowUnknown = Boolean.parseBoolean(this.processingEnv.getOptions().get(ALLOW_UNKNOWN_DEPENDENCIES));
+        for (ServiceNode service : graph.values()) {
+            for (String dependency : service.dependencies) {
+                if (graph.containsKey(dependency) || SERVICE_CONTEXT.equals(dependency)) {
+                    continue;
+                }
+
+                String msg = "unknown dependency " + dependency + " for @Service " + service.name;
+                if (allowUnknown) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, msg, service.element);
+                } else {
+                    this.error(msg, service.element);
+                }
+            }
+        }
+
+        // depth first search, a dependency on the current path is a cycle
+        Map<String, Integer> state = new HashMap<>();
+        for (ServiceNode service : graph.values()) {
+            this.findCycles(service, graph, state, new ArrayList<>());
+        }
+    }
+
+    private void findCycles(final ServiceNode service,
+                            final Map<String, ServiceNode> graph,
+                            final Map<String, Integer> state,
+                            final List<String> path)
+    {
+        final int visiting = 1;
+        final int done = 2;
+        if (state.containsKey(service.name)) {
+            return;
+        }
+
+        state.put(service.name, visiting);
+        path.add(service.name);
+        for (String name : service.dependencies) {
+            ServiceNode dependency = graph.get(name);
+            if (dependency == null) {
+                continue;
+            }
+
+            Integer dependencyState = state.get(name);
+            if (dependencyState == null) {
+                this.findCycles(dependency, graph, state, path);
+            } else if (dependencyState == visiting) {
+                List<String> cycle = new ArrayList<>(path.subList(path.indexOf(name), path.size()));
+                cycle.add(name);
+                this.error("cycling dependency detected: [" + String.join(" -> ", cycle) + "]", service.element);
+            }
+        }
+        path.remove(path.size() - 1);
+        state.put(service.name, done);
+    }
+
+    // ########################################################################################
+    // ###
+    // ### Code generation
+    // ###
+    // ########################################################################################
+
+    private String registration(final String name,
+                                final String type,
+                                final List<String> dependencies,
+                                final boolean lazy,
+                                final String scope,
+                                final String call,
+                                final String configuration)
+    {
+        StringBuilder deps = new StringBuilder();
+        for (String dependency : dependencies) {
+            if (deps.length() > 0) {
+                deps.append(", ");
+            }
+            deps.append(this.literal(dependency));
+        }
+
+        return "        injector.addGeneratedService(\n"
+                + "                " + this.literal(name) + ",\n"
+                + "                " + type + ",\n"
+                + "                new String[]{" + deps + "},\n"
+                + "                " + lazy + ",\n"
+                + "                addy.annotations.Scope." + scope + ",\n"
+                + "                (function, dependencies, instance) -> " + call + ",\n"
+                + "                " + configuration + ");\n";
+    }
+
+    /**
+     * Same rules as the Injector: primitives are boxed, and a CompletionStage declares the
+     * type it completes with.
+     *
+     * @return class literal of the type a service method declares
+     */
+    private String serviceType(final TypeMirror returnType) {
+        if (returnType.getKind() == TypeKind.VOID) {
+            return "java.lang.Void.class";
+        } else if (returnType.getKind().isPrimitive()) {
+            return this.processingEnv.getTypeUtils().boxedClass((PrimitiveType) returnType).getQualifiedName() + ".class";
+        }
+
+        TypeMirror stage = this.processingEnv.getTypeUtils().erasure(
+                this.processingEnv.getElementUtils().getTypeElement(COMPLETION_STAGE).asType());
+        TypeMirror type = this.processingEnv.getTypeUtils().erasure(returnType);
+        if (this.processingEnv.getTypeUtils().isAssignable(type, stage)) {
+            List<? extends TypeMirror> arguments = returnType.getKind() == TypeKind.DECLARED
+                    ? ((DeclaredType) returnType).getTypeArguments()
+                    : new ArrayList<TypeMirror>();
+            if (arguments.isEmpty() || (arguments.get(0).getKind() != TypeKind.DECLARED && arguments.get(0).getKind() != TypeKind.ARRAY)) {
+                return "java.lang.Object.class";
+            }
+
+            type = this.processingEnv.getTypeUtils().erasure(arguments.get(0));
+            if (type.toString().equals(COMPLETION_STAGE) || type.toString().equals(COMPLETABLE_FUTURE)) {
+                return "java.lang.Object.class";
+            }
+        }
+
+        return type + ".class";
+    }
+
+    /**
+     * @return casted arguments, taken from the dependencies array in parameter order
+     */
+    private String arguments(final ExecutableElement executable) {
+        StringBuilder args = new StringBuilder();
+        List<? extends VariableElement> params = executable.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                args.append(", ");
+            }
+
+            TypeMirror type = params.get(i).asType();
+            String cast;
+            if (type.getKind().isPrimitive()) {
+                cast = this.processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+            } else {
+                cast = this.processingEnv.getTypeUtils().erasure(type).toString();
+            }
+            args.append("(").append(cast).append(") dependencies[").append(i).append("]");
+        }
+
+        return args.toString();
+    }
+
+    private void writeWiring(final TypeElement config,
+                             final List<String> services,
+                             final List<String> linkedServices)
+    {
+        String pkg = this.packageOf(config);
+        String binaryName = this.processingEnv.getElementUtils().getBinaryName(config).toString();
+        String simpleName = binaryName.substring(pkg.isEmpty() ? 0 : pkg.length() + 1).replace('$', '_') + WIRING_SUFFIX;
+        String qualifiedName = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+
+        StringBuilder code = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            code.append("package ").append(pkg).append(";\n\n");
+        }
+        code.append("/**\n")
+                .append(" * Generated by addy-processor for ").append(this.qualifiedName(config)).append(", do not edit.\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append("\n")
+                .append("        implements\n")
+                .append("        addy.ServiceWiring\n")
+                .append("{\n")
+                .append("    @Override\n")
+                .append("    public Object newConfiguration() {\n")
+                .append("        return new ").append(this.qualifiedName(config)).append("();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void registerServices(final addy.Injector injector, final Object configuration) {\n");
+        for (String service : services) {
+            code.append(service);
+        }
+        code.append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void registerLinkedServices(final addy.Injector injector) {\n");
+        for (String service : linkedServices) {
+            code.append(service);
+        }
+        code.append("    }\n")
+                .append("}\n");
+
+        try {
+            JavaFileObject file = this.processingEnv.getFiler().createSourceFile(qualifiedName, config);
+            try (Writer writer = file.openWriter()) {
+                writer.write(code.toString());
+            }
+        } catch (IOException e) {
+            this.error("unable to write wiring for @Configuration: " + e.getMessage(), config);
+        }
+    }
+
+    // ########################################################################################
+    // ###
+    // ### Helpers
+    // ###
+    // ########################################################################################
+
+    private AnnotationMirror getAnnotation(final Element element, final String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    private AnnotationValue getValue(final AnnotationMirror mirror, final String attribute) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue();
+            }
+        }
+
+        return null;
+    }
+
+    private String getStringValue(final AnnotationMirror mirror, final String attribute) {
+        AnnotationValue value = this.getValue(mirror, attribute);
+        return value == null ? "" : (String) value.getValue();
+    }
+
+    /**
+     * @return name of the enum constant, or null if the attribute is missing
+     */
+    private String getEnumValue(final AnnotationMirror mirror, final String attribute) {
+        AnnotationValue value = this.getValue(mirror, attribute);
+        return value == null ? null : ((VariableElement) value.getValue()).getSimpleName().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends AnnotationValue> getArrayValue(final AnnotationMirror mirror, final String attribute) {
+        AnnotationValue value = this.getValue(mirror, attribute);
+        if (value == null) {
+            return new ArrayList<>();
+        }
+
+        return (List<? extends AnnotationValue>) value.getValue();
+    }
+
+    private String packageOf(final Element element) {
+        PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(element);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    private String qualifiedName(final TypeElement type) {
+        return type.getQualifiedName().toString();
+    }
+
+    private String literal(final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(final String msg, final Element element) {
+        Messager messager = this.processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, msg, element);
+    }
+}
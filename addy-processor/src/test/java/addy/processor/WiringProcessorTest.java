@@ -0,0 +1,235 @@
+package addy.processor;
+
+import addy.InjectorManager;
+import addy.context.ServiceContext;
+import addy.context.ServiceScope;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WiringProcessorTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final String WIRED = "package sample;\n"
+            + "import addy.annotations.*;\n"
+            + "@Configuration\n"
+            + "@ServiceLinker({Linked.class})\n"
+            + "public class Wired {\n"
+            + "    @Service public int six() { return 6; }\n"
+            + "    @Service(\"caller\") public String caller(@Inject(\"six\") int six) {\n"
+            + "        return new Throwable().getStackTrace()[1].getClassName();\n"
+            + "    }\n"
+            + "    @Service @Lazy public String lazyName(@Inject(\"linked\") Linked linked) { return \"n\" + linked.six; }\n"
+            + "    @Service(scope = Scope.REQUEST) public StringBuilder perRequest(@Inject(\"six\") int six) { return new StringBuilder().append(six); }\n"
+            + "}\n";
+
+    private static final String LINKED = "package sample;\n"
+            + "import addy.annotations.*;\n"
+            + "@Service\n"
+            + "public class Linked {\n"
+            + "    public final int six;\n"
+            + "    @DepWire public Linked(@Inject(\"six\") int six) { this.six = six; }\n"
+            + "}\n";
+
+    private DiagnosticCollector<JavaFileObject> compile(final File out, final String... sources) throws IOException {
+        File src = this.tmp.newFolder();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            File file = new File(src, sources[i]);
+            Files.write(file.toPath(), sources[i + 1].getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager manager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-processor", WiringProcessor.class.getName(),
+                    "-d", out.getAbsolutePath(),
+                    "-s", out.getAbsolutePath());
+            compiler.getTask(null, manager, diagnostics, options, null, manager.getJavaFileObjectsFromFiles(files)).call();
+        }
+
+        return diagnostics;
+    }
+
+    private String errors(final DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic.getMessage(null)).append("\n");
+            }
+        }
+
+        return errors.toString();
+    }
+
+    @Test
+    public void testGeneratedWiringIsUsed() throws Exception {
+        File out = this.tmp.newFolder();
+        DiagnosticCollector<JavaFileObject> diagnostics = this.compile(out, "Wired.java", WIRED, "Linked.java", LINKED);
+        assertEquals("", this.errors(diagnostics));
+        assertTrue(new File(out, "sample/Wired_AddyWiring.java").exists());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toURI().toURL()}, this.getClass().getClassLoader())) {
+            InjectorManager manager = new InjectorManager(loader.loadClass("sample.Wired"));
+            manager.loadAndWait();
+            ServiceContext ctx = manager.getSrvCtx();
+
+            // the service method is called directly from the generated class
+            assertTrue(((String) ctx.getService("caller")).startsWith("sample.Wired_AddyWiring"));
+            assertEquals(6, ctx.getService("six"));
+            assertEquals("n6", ctx.getService("lazyName"));
+            try (ServiceScope request = ctx.enterRequestScope()) {
+                assertEquals("6", ctx.getService("perRequest").toString());
+            }
+        }
+    }
+
+    @Test
+    public void testVoidServiceCompiles() throws Exception {
+        String empty = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "@Configuration\n"
+                + "public class Empty {\n"
+                + "    @Service public void nothing() { }\n"
+                + "    @Service public static String named() { return \"named\"; }\n"
+                + "}\n";
+
+        assertEquals("", this.errors(this.compile(this.tmp.newFolder(), "Empty.java", empty)));
+    }
+
+    @Test
+    public void testSupplierIsWiredThroughReflection() throws Exception {
+        String deferred = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "import java.util.function.Supplier;\n"
+                + "@Configuration\n"
+                + "public class Deferred {\n"
+                + "    @Service public Supplier<Object> a(@Inject(\"b\") Supplier<Object> b) { return b; }\n"
+                + "    @Service public Object b(@Inject(\"a\") Supplier<Object> a) { return \"b\"; }\n"
+                + "}\n";
+
+        File out = this.tmp.newFolder();
+        assertEquals("", this.errors(this.compile(out, "Deferred.java", deferred)));
+        assertTrue(!new File(out, "sample/Deferred_AddyWiring.java").exists());
+    }
+
+    @Test
+    public void testGeneratedServicesAreFoundByType() throws Exception {
+        String typed = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "import java.util.List;\n"
+                + "@Configuration\n"
+                + "public class Typed {\n"
+                + "    public static Object wired;\n"
+                + "    @Service public StringBuilder greeting() { return new StringBuilder(\"hi\"); }\n"
+                + "    @Service public String name() { return \"n\"; }\n"
+                + "    @Service public int six() { return 6; }\n"
+                + "    @DepWire public void wire(@Inject StringBuilder greeting, @Inject Integer six, @Inject List<CharSequence> all) {\n"
+                + "        wired = greeting + \" \" + six + \" \" + all;\n"
+                + "    }\n"
+                + "}\n";
+
+        File out = this.tmp.newFolder();
+        assertEquals("", this.errors(this.compile(out, "Typed.java", typed)));
+        assertTrue(new File(out, "sample/Typed_AddyWiring.java").exists());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toURI().toURL()}, this.getClass().getClassLoader())) {
+            Class<?> config = loader.loadClass("sample.Typed");
+            new InjectorManager(config).loadAndWait();
+
+            // by type and as multibinding, like services wired through reflection
+            assertEquals("hi 6 [hi, n]", config.getField("wired").get(null));
+        }
+    }
+
+    @Test
+    public void testInjectionByTypeIsWiredThroughReflection() throws Exception {
+        String byType = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "import java.util.List;\n"
+                + "@Configuration\n"
+                + "public class ByType {\n"
+                + "    @Service public StringBuilder greeting() { return new StringBuilder(\"hi\"); }\n"
+                + "    @Service public String user(@Inject StringBuilder g) { return g + \" user\"; }\n"
+                + "}\n";
+        String multiBinding = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "import java.util.List;\n"
+                + "@Configuration\n"
+                + "public class Collected {\n"
+                + "    @Service public StringBuilder first() { return new StringBuilder(\"1\"); }\n"
+                + "    @Service public StringBuilder second() { return new StringBuilder(\"2\"); }\n"
+                + "    @Service public Integer count(@Inject List<StringBuilder> all, @Inject StringBuilder[] array) { return all.size() + array.length; }\n"
+                + "}\n";
+
+        File out = this.tmp.newFolder();
+        assertEquals("", this.errors(this.compile(out, "ByType.java", byType, "Collected.java", multiBinding)));
+        assertTrue(!new File(out, "sample/ByType_AddyWiring.java").exists());
+        assertTrue(!new File(out, "sample/Collected_AddyWiring.java").exists());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toURI().toURL()}, this.getClass().getClassLoader())) {
+            InjectorManager manager = new InjectorManager(loader.loadClass("sample.ByType"));
+            manager.loadAndWait();
+            assertEquals("hi user", manager.getSrvCtx().getService("user"));
+
+            manager = new InjectorManager(loader.loadClass("sample.Collected"));
+            manager.loadAndWait();
+            assertEquals(4, manager.getSrvCtx().getService("count"));
+        }
+    }
+
+    @Test
+    public void testCycleFailsCompilation() throws Exception {
+        String cycle = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "@Configuration\n"
+                + "public class Cycle {\n"
+                + "    @Service public Object a(@Inject(\"b\") Object b) { return b; }\n"
+                + "    @Service public Object b(@Inject(\"c\") Object c) { return c; }\n"
+                + "    @Service public Object c(@Inject(\"a\") Object a) { return a; }\n"
+                + "}\n";
+
+        String errors = this.errors(this.compile(this.tmp.newFolder(), "Cycle.java", cycle));
+        assertTrue(errors, errors.contains("[a -> b -> c -> a]"));
+    }
+
+    @Test
+    public void testDuplicatesAndUnknownDependenciesFailCompilation() throws Exception {
+        String broken = "package sample;\n"
+                + "import addy.annotations.*;\n"
+                + "@Configuration\n"
+                + "public class Broken {\n"
+                + "    @Service(\"a\") public Object a() { return 1; }\n"
+                + "    @Service(\"A\") public Object other() { return 2; }\n"
+                + "    @Service public Object b(@Inject(\"missing\") Object m, @Inject(\"service-context\") Object ctx) { return m; }\n"
+                + "}\n";
+
+        String errors = this.errors(this.compile(this.tmp.newFolder(), "Broken.java", broken));
+        assertTrue(errors, errors.contains("duplicate @Service: a"));
+        assertTrue(errors, errors.contains("unknown dependency missing for @Service b"));
+        assertTrue(errors, !errors.contains("service-context"));
+    }
+}
@@ -0,0 +1,193 @@
+package addy.benchmark;
+
+import addy.Injector;
+import addy.InjectorManager;
+import addy.LoadPhase;
+import addy.benchmark.generated.Graphs;
+import addy.context.ServiceContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every phase of InjectorManager.loadAndWait on its own, for generated graphs of
+ * different shapes and sizes, and loadAndWait as a whole.
+ *
+ * Each benchmark method is named after the Injector method of its phase. Before every
+ * invocation a fresh Injector is run through all the phases before the measured one.
+ * The phases of the smallest graphs take microseconds, so expect their numbers to include
+ * some of the per invocation overhead of JMH.
+ *
+ * @see addy.LoadPhase
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectorPhaseBenchmark
+{
+    @Param({"chain", "fanout", "diamond", "linker"})
+    public String shape;
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private Class<?>[] configs;
+    private Injector injector;
+    private ServiceContext ctx;
+
+    @Setup(Level.Trial)
+    public void findGraph() {
+        this.configs = Graphs.get(this.shape, this.size);
+    }
+
+    /**
+     * Run a new Injector up to, but not including, the phase of the benchmark.
+     *
+     * @param params of the benchmark about to be invoked
+     */
+    @Setup(Level.Invocation)
+    public void prepare(final BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+
+        this.ctx = new ServiceContext();
+        this.injector = new Injector(this.configs);
+        this.injector.addServiceInstance(ServiceContext.NAME, this.ctx);
+        this.injector.activateFailOnNullInstance();
+
+        LoadPhase target = phaseOf(method);
+        if (target == null) {
+            return;
+        }
+
+        for (LoadPhase phase : LoadPhase.values()) {
+            if (phase == target) {
+                break;
+            }
+            this.run(phase);
+        }
+    }
+
+    /**
+     * @return the phase named like the benchmark method, or null if it measures a whole load
+     */
+    private static LoadPhase phaseOf(final String method) {
+        StringBuilder name = new StringBuilder();
+        for (char c : method.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                name.append('_');
+            }
+            name.append(Character.toUpperCase(c));
+        }
+
+        for (LoadPhase phase : LoadPhase.values()) {
+            if (phase.name().equals(name.toString())) {
+                return phase;
+            }
+        }
+
+        return null;
+    }
+
+    private void run(final LoadPhase phase) {
+        switch (phase) {
+            case LOAD:
+                this.injector.load();
+                break;
+            case CRASH_ON_DUPLICATES:
+                this.injector.crashOnDuplicates();
+                break;
+            case BRANCH_OUT_DEPENDENCY_TREE:
+                this.injector.branchOutDependencyTree();
+                break;
+            case SORT_BY_DEPENDENCIES:
+                this.injector.sortByDependencies();
+                break;
+            case INSTANTIATE_COMPONENTS:
+                this.injector.instantiateComponents();
+                break;
+            case CRASH_ON_NULL_INSTANCES:
+                this.injector.crashOnNullInstances();
+                break;
+            case INSTALL_SERVICES:
+                this.injector.installServices(this.ctx);
+                break;
+            case FIND_DEP_WIRE_METHODS_AND_POPULATE:
+                this.injector.findDepWireMethodsAndPopulate();
+                break;
+            case WARM_UP:
+                this.injector.warmUp();
+                break;
+        }
+    }
+
+    @Benchmark
+    public Injector load() {
+        this.run(LoadPhase.LOAD);
+        return this.injector;
+    }
+
+    @Benchmark
+    public Injector crashOnDuplicates() {
+        this.run(LoadPhase.CRASH_ON_DUPLICATES);
+        return this.injector;
+    }
+
+    @Benchmark
+    public Injector branchOutDependencyTree() {
+        this.run(LoadPhase.BRANCH_OUT_DEPENDENCY_TREE);
+        return this.injector;
+    }
+
+    @Benchmark
+    public Injector sortByDependencies() {
+        this.run(LoadPhase.SORT_BY_DEPENDENCIES);
+        return this.injector;
+    }
+
+    @Benchmark
+    public Injector instantiateComponents() {
+        this.run(LoadPhase.INSTANTIATE_COMPONENTS);
+        return this.injector;
+    }
+
+    @Benchmark
+    public ServiceContext installServices() {
+        this.run(LoadPhase.INSTALL_SERVICES);
+        return this.ctx;
+    }
+
+    @Benchmark
+    public Injector findDepWireMethodsAndPopulate() {
+        this.run(LoadPhase.FIND_DEP_WIRE_METHODS_AND_POPULATE);
+        return this.injector;
+    }
+
+    @Benchmark
+    public Injector warmUp() {
+        this.run(LoadPhase.WARM_UP);
+        return this.injector;
+    }
+
+    @Benchmark
+    public ServiceContext loadAndWait() {
+        InjectorManager manager = new InjectorManager(this.configs);
+        manager.loadAndWait();
+        return manager.getSrvCtx();
+    }
+}
@@ -0,0 +1,275 @@
+package addy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders services such that every service comes after its construction dependencies.
+ *
+ * The services are ordered with Kahn's algorithm. Any service left over is part of,
+ * or depends on, a dependency cycle. Those are run through Tarjan's strongly connected
+ * components algorithm so every cycle can be reported with all of its members.
+ * Both passes are linear in the number of services and dependencies.
+ *
+ * Services are nodes with dense ids, their index in the components, and the graph is kept
+ * as arrays of ids. Transitive dependencies are never stored, they are found when needed.
+ */
+public class DependencyPlanner
+{
+    private final List<ServiceHolder> components;
+    private final ServiceRegistry registry;
+
+    private int[][] dependencies;
+    private int[][] dependents;
+
+    private final List<ServiceHolder> order;
+    private final List<List<String>> cycles;
+
+    public DependencyPlanner(final List<ServiceHolder> components,
+                             final ServiceRegistry registry)
+    {
+        this.components = components;
+        this.registry = registry;
+        this.order = new ArrayList<>(components.size());
+        this.cycles = new ArrayList<>();
+    }
+
+    /**
+     * Build the dependency graph, sort it and look for cycles.
+     */
+    public void plan() {
+        this.buildGraph();
+        this.sort();
+
+        if (this.order.size() != this.components.size()) {
+            this.findCycles();
+        }
+    }
+
+    /**
+     * Every service that must be instantiated for the given services to be instantiated.
+     * The graph doesn't have to be sorted, one bit per service is allocated.
+     *
+     * @param roots indexes of services in the components
+     * @return indexes of the roots and of every service they depend on, directly or not
+     */
+    public BitSet reach(final BitSet roots) {
+        if (this.dependencies == null) {
+            this.buildGraph();
+        }
+
+        final BitSet reached = (BitSet) roots.clone();
+        final int[] stack = new int[this.components.size()];
+        int size = 0;
+        for (int i = roots.nextSetBit(0); i >= 0; i = roots.nextSetBit(i + 1)) {
+            stack[size++] = i;
+        }
+
+        // every service is pushed once, when it is first reached
+        while (size > 0) {
+            for (int dependency : this.dependencies[stack[--size]]) {
+                if (!reached.get(dependency)) {
+                    reached.set(dependency);
+                    stack[size++] = dependency;
+                }
+            }
+        }
+
+        return reached;
+    }
+
+    /**
+     * Map every service to an index and resolve the construction dependencies by name.
+     * Unknown dependencies are skipped, they are reported when the service is initialized.
+     */
+    private void buildGraph() {
+        final int size = this.components.size();
+        final Map<ServiceHolder, Integer> ids = new IdentityHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.put(this.components.get(i), i);
+        }
+
+        int[] nrOfDependents = new int[size];
+        this.dependencies = new int[size][];
+        for (int i = 0; i < size; i++) {
+            final List<String> required = this.components.get(i).getRequiredDependencies();
+            int[] edges = new int[required.size()];
+            int count = 0;
+            for (final String name : required) {
+                final ServiceHolder dependency = this.registry.get(name);
+                if (dependency == null) {
+                    continue;
+                }
+
+                final int id = ids.get(dependency);
+                edges[count++] = id;
+                nrOfDependents[id]++;
+            }
+
+            this.dependencies[i] = count == edges.length ? edges : Arrays.copyOf(edges, count);
+        }
+
+        this.dependents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            this.dependents[i] = new int[nrOfDependents[i]];
+            nrOfDependents[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int dependency : this.dependencies[i]) {
+                this.dependents[dependency][nrOfDependents[dependency]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Kahn's algorithm, services without pending dependencies keep their registration order.
+     */
+    private void sort() {
+        final int size = this.components.size();
+        int[] pending = new int[size];
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+
+        for (int i = 0; i < size; i++) {
+            pending[i] = this.dependencies[i].length;
+            if (pending[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+
+        while (head < tail) {
+            final int current = queue[head++];
+            this.order.add(this.components.get(current));
+
+            for (int dependent : this.dependents[current]) {
+                if (--pending[dependent] == 0) {
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterative version of Tarjan's algorithm, to not overflow the stack on deep graphs.
+     * Every component with more than one member, or a member depending on itself, is a cycle.
+     */
+    private void findCycles() {
+        final int size = this.components.size();
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        int[] edge = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        int stackSize = 0;
+        int counter = 1;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != 0) {
+                continue;
+            }
+
+            int calls = 0;
+            callStack[calls++] = root;
+            index[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (calls > 0) {
+                final int node = callStack[calls - 1];
+                if (edge[node] < this.dependencies[node].length) {
+                    final int next = this.dependencies[node][edge[node]++];
+                    if (index[next] == 0) {
+                        index[next] = lowLink[next] = counter++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        callStack[calls++] = next;
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+
+                calls--;
+                if (calls > 0) {
+                    final int parent = callStack[calls - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+
+                if (lowLink[node] != index[node]) {
+                    continue;
+                }
+
+                // node is the root of a strongly connected component
+                List<Integer> members = new ArrayList<>();
+                int member;
+                do {
+                    member = stack[--stackSize];
+                    onStack[member] = false;
+                    members.add(member);
+                } while (member != node);
+
+                if (members.size() > 1 || this.dependsOnItself(node)) {
+                    this.cycles.add(this.cyclePath(members));
+                }
+            }
+        }
+    }
+
+    private boolean dependsOnItself(final int node) {
+        for (int dependency : this.dependencies[node]) {
+            if (dependency == node) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Members are popped from the Tarjan stack in reverse discovery order. In discovery
+     * order every member depends on the next one for a simple cycle, and the path is
+     * closed with the first member again.
+     *
+     * @param members of a strongly connected component, as popped from the stack
+     * @return service names, first and last name is the same
+     */
+    private List<String> cyclePath(final List<Integer> members) {
+        List<String> path = new ArrayList<>(members.size() + 1);
+        for (int i = members.size() - 1; i >= 0; i--) {
+            path.add(this.components.get(members.get(i)).getName());
+        }
+        path.add(path.get(0));
+
+        return path;
+    }
+
+    // ########################################################################################
+    // ###
+    // ### Getters
+    // ###
+    // ########################################################################################
+
+    /**
+     * @return services in instantiation order, only contains services not part of or depending on a cycle
+     */
+    public List<ServiceHolder> getOrder() {
+        return this.order;
+    }
+
+    /**
+     * @return every dependency cycle as a path of service names
+     */
+    public List<List<String>> getCycles() {
+        return this.cycles;
+    }
+
+    public boolean hasCycles() {
+        return !this.cycles.isEmpty();
+    }
+}
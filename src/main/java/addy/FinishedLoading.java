@@ -5,4 +5,13 @@ public interface FinishedLoading {
      * Trigger when the game has finished loading instances + settings.
      */
     void trigger();
+
+    /**
+     * Trigger in stead of trigger when loading failed or was cancelled.
+     *
+     * @param cause what stopped the loading
+     */
+    default void failed(final Throwable cause) {
+        cause.printStackTrace();
+    }
 }
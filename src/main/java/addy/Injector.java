@@ -1,15 +1,44 @@
 package addy;
 
 import addy.annotations.*;
+import addy.context.LazyService;
+import addy.context.ScopedService;
+import addy.context.ServiceContext;
+import addy.context.ServiceGetter;
 import addy.context.ServiceSetter;
+import addy.context.TypeIndex;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class Injector
 {
@@ -17,9 +46,42 @@ public class Injector
 
     private final List<Class<?>> configs;
     private final List<ServiceHolder> components;
+    private final ServiceRegistry registry;
     private final List<Object> instances;
 
+    private final Set<ServiceHolder> wiredLazyServices;
+    private final Object lazyLock;
+
     private boolean failOnNullInstance;
+    private DependencyPlanner planner;
+
+    private ServiceInvoker methodInvoker;
+    private ServiceInvoker constructorInvoker;
+
+    private InjectorListener listener;
+    private boolean useGeneratedWiring;
+    private final Map<Class<?>, ServiceWiring> wirings;
+    private TypeIndex<ServiceHolder> types;
+    // services without a declared type, which the type index can't find
+    private List<String> untyped;
+
+    private ServiceGetter parent;
+    private final Set<ServiceHolder> inherited;
+
+    // configuration class name -> names of its services, kept for reload
+    private final Map<String, List<String>> servicesByConfig;
+    private Set<String> stale;
+
+    // services and @Client classes the instantiated services are pruned to, all if empty
+    private final Set<String> roots;
+    private final List<Class<?>> rootClients;
+    private final List<String> pruned;
+
+    // wired services with valid @WarmUp methods, by name
+    private final Map<String, Object> warmUps;
+
+    // threads blocked on a Supplier, mapped to the service they wait for
+    private final Map<Thread, ServiceHolder> waiting;
 
     // TODO: make use of customized annotations to help readability for projects
     private AnnotationConfig annotations;
@@ -27,8 +89,27 @@ public class Injector
     public Injector(final List<Class<?>> configs) {
         this.configs = new ArrayList<>(configs);
         this.components = new ArrayList<>();
+        this.registry = new ServiceRegistry();
         this.instances = new ArrayList<>();
+        this.wiredLazyServices = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.lazyLock = new Object();
         this.failOnNullInstance = false;
+        this.methodInvoker = ServiceHolder::defaultMethodInvoker;
+        this.constructorInvoker = ServiceHolder::defaultConstructorInvoker;
+        this.listener = InjectorListener.NONE;
+        this.useGeneratedWiring = true;
+        this.wirings = new HashMap<>();
+        this.types = null;
+        this.parent = null;
+        this.inherited = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.servicesByConfig = new LinkedHashMap<>();
+        this.stale = Collections.emptySet();
+        this.roots = new LinkedHashSet<>();
+        this.rootClients = new ArrayList<>();
+        this.pruned = new ArrayList<>();
+        this.warmUps = new LinkedHashMap<>();
+        this.untyped = Collections.emptyList();
+        this.waiting = new ConcurrentHashMap<>();
     }
 
     public Injector(Class<?>... configs) {
@@ -37,7 +118,26 @@ public class Injector
 
         this.instances = new ArrayList<>();
         this.components = new ArrayList<>();
+        this.registry = new ServiceRegistry();
+        this.wiredLazyServices = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.lazyLock = new Object();
         this.failOnNullInstance = false;
+        this.methodInvoker = ServiceHolder::defaultMethodInvoker;
+        this.constructorInvoker = ServiceHolder::defaultConstructorInvoker;
+        this.listener = InjectorListener.NONE;
+        this.useGeneratedWiring = true;
+        this.wirings = new HashMap<>();
+        this.types = null;
+        this.parent = null;
+        this.inherited = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.servicesByConfig = new LinkedHashMap<>();
+        this.stale = Collections.emptySet();
+        this.roots = new LinkedHashSet<>();
+        this.rootClients = new ArrayList<>();
+        this.pruned = new ArrayList<>();
+        this.warmUps = new LinkedHashMap<>();
+        this.untyped = Collections.emptyList();
+        this.waiting = new ConcurrentHashMap<>();
     }
 
     private List<String> getParameterServiceName(Method method) {
@@ -61,6 +161,110 @@ public class Injector
         return params;
     }
 
+    /**
+     * @param annotations parameter annotations of a method or constructor
+     * @param types parameter types of the same method or constructor
+     * @return type of every parameter annotated with @Inject, in the order of getParameterServiceName
+     */
+    private List<Class<?>> getInjectedParameterTypes(final Annotation[][] annotations, final Class<?>[] types) {
+        List<Class<?>> injected = new ArrayList<>();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation a : annotations[i]) {
+                if (a.annotationType() == Inject.class) {
+                    injected.add(types[i]);
+                    break;
+                }
+            }
+        }
+
+        return injected;
+    }
+
+    /**
+     * @param annotations parameter annotations of a method or constructor
+     * @param types generic parameter types of the same method or constructor
+     * @return injected parameter index mapped to the type of every @Inject without a name on a T[] or List<T>
+     */
+    private Map<Integer, Type> getMultiBindings(final Annotation[][] annotations, final Type[] types) {
+        Map<Integer, Type> multiBindings = new HashMap<>();
+        for (int i = 0, injected = 0; i < annotations.length; i++) {
+            for (Annotation a : annotations[i]) {
+                if (a.annotationType() != Inject.class) {
+                    continue;
+                }
+
+                if (((Inject) a).value().isEmpty() && isMultiBinding(types[i])) {
+                    multiBindings.put(injected, types[i]);
+                }
+                injected++;
+                break;
+            }
+        }
+
+        return multiBindings;
+    }
+
+    private static boolean isMultiBinding(final Type type) {
+        Type raw = type instanceof ParameterizedType ? ((ParameterizedType) type).getRawType() : type;
+        return raw == List.class || (raw instanceof Class && ((Class<?>) raw).isArray() && !((Class<?>) raw).getComponentType().isPrimitive());
+    }
+
+    /**
+     * Find the name of a service through its type, for @Inject without a name.
+     *
+     * @param type
+     * @return name of the one service of the given type
+     */
+    private String getServiceNameByType(final Class<?> type) {
+        List<ServiceHolder> candidates = this.types == null ? Collections.emptyList() : this.types.get(type);
+        if (candidates.size() != 1) {
+            throw new InstantiationError("expected one service of type " + type.getName() + ", found " + candidates);
+        }
+
+        return candidates.get(0).getName();
+    }
+
+    /**
+     * Resolve dependencies that none of the configurations provide from the already loaded
+     * services of a parent context. Parent services are shared, they are neither installed
+     * nor wired again. Must be set before load is called.
+     *
+     * @param parent eg. the ServiceContext of another InjectorManager
+     */
+    public void setParent(final ServiceGetter parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Only instantiate the given services, and the services they depend on. Every other
+     * service is pruned: it is neither instantiated, installed nor wired.
+     *
+     * @param names of the root services
+     * @see #getPrunedServices()
+     */
+    public void addRoots(final String... names) {
+        for (String name : names) {
+            this.roots.add(name.toLowerCase());
+        }
+    }
+
+    /**
+     * Like addRoots, with the services injected into the @DepWire constructors and methods
+     * of the given classes as roots, eg. @Client classes of a binary.
+     *
+     * @param clients classes depending on services
+     */
+    public void addRootClients(final Class<?>... clients) {
+        this.rootClients.addAll(Arrays.asList(clients));
+    }
+
+    /**
+     * @return names of the services left out by the roots, in registration order
+     */
+    public List<String> getPrunedServices() {
+        return Collections.unmodifiableList(this.pruned);
+    }
+
     public void addConfigurations(final Class<?>... configs) {
         this.configs.addAll(Arrays.asList(configs));
     }
@@ -77,6 +281,119 @@ public class Injector
         this.failOnNullInstance = true;
     }
 
+    /**
+     * Invoke service methods and constructors through cached method handles in stead of
+     * reflection. Must be activated before load is called.
+     *
+     * @see MethodHandleInvoker
+     */
+    public void activateMethodHandleInvokers() {
+        this.methodInvoker = MethodHandleInvoker.INSTANCE;
+        this.constructorInvoker = MethodHandleInvoker.INSTANCE;
+    }
+
+    /**
+     * Always discover services through reflection, even when addy-processor has generated
+     * a wiring class for a configuration.
+     */
+    public void deactivateGeneratedWiring() {
+        this.useGeneratedWiring = false;
+    }
+
+    /**
+     * Register a service with an invoker generated at compile time.
+     * Used by the ServiceWiring classes generated by addy-processor.
+     *
+     * @param name of the service
+     * @param dependencies service names of the parameters, in parameter order
+     * @param lazy true if the service is marked with @Lazy
+     * @param invoker calls the service method or constructor directly
+     * @param configuration instance handed to the invoker, null for constructors
+     * @see ServiceWiring
+     */
+    public void addGeneratedService(final String name,
+                                    final String[] dependencies,
+                                    final boolean lazy,
+                                    final ServiceInvoker invoker,
+                                    final Object configuration)
+    {
+        this.addGeneratedService(name, dependencies, lazy, Scope.SINGLETON, invoker, configuration);
+    }
+
+    /**
+     * Register a service found by addy-processor, with the scope of its @Service.
+     * The service has no declared type, so it can't be injected by type.
+     *
+     * @param name of the service
+     * @param dependencies service names of the parameters, in parameter order
+     * @param lazy true if the service is marked with @Lazy
+     * @param scope of the service
+     * @param invoker calls the service method or constructor directly
+     * @param configuration instance handed to the invoker, null for constructors
+     * @see ServiceWiring
+     */
+    public void addGeneratedService(final String name,
+                                    final String[] dependencies,
+                                    final boolean lazy,
+                                    final Scope scope,
+                                    final ServiceInvoker invoker,
+                                    final Object configuration)
+    {
+        this.addGeneratedService(name, null, dependencies, lazy, scope, invoker, configuration);
+    }
+
+    /**
+     * Register a service found by addy-processor, with its declared type, such that it is
+     * injected by type and collected into multibindings like any other service.
+     *
+     * @param name of the service
+     * @param type the service method returns, boxed, or the linked service class
+     * @param dependencies service names of the parameters, in parameter order
+     * @param lazy true if the service is marked with @Lazy
+     * @param scope of the service
+     * @param invoker calls the service method or constructor directly
+     * @param configuration instance handed to the invoker, null for constructors
+     * @see ServiceWiring
+     */
+    public void addGeneratedService(final String name,
+                                    final Class<?> type,
+                                    final String[] dependencies,
+                                    final boolean lazy,
+                                    final Scope scope,
+                                    final ServiceInvoker invoker,
+                                    final Object configuration)
+    {
+        ServiceHolder holder = new ServiceHolder(
+                name,
+                null,
+                Arrays.asList(dependencies),
+                invoker,
+                configuration);
+        holder.setType(type);
+        holder.setLazy(lazy);
+        holder.setScope(scope);
+        this.register(holder);
+    }
+
+    /**
+     * Set the invoker for @Service and @DepWire methods. Must be set before load is called.
+     *
+     * @param methodInvoker
+     */
+    public void setMethodInvoker(final ServiceInvoker methodInvoker) {
+        this.methodInvoker = methodInvoker;
+    }
+
+    /**
+     * Set the invoker for @DepWire constructors of @ServiceLinker classes.
+     * Must be set before load is called.
+     *
+     * @param constructorInvoker
+     */
+    public void setConstructorInvoker(final ServiceInvoker constructorInvoker) {
+        this.constructorInvoker = constructorInvoker;
+    }
+
     /**
      * Add GameComponents manually, must be an instance however.
      * @param name
@@ -85,7 +402,22 @@ public class Injector
     public void addServiceInstance(final String name,
                                    final Object instance)
     {
-        this.components.add(new ServiceHolder(name, instance));
+        this.register(new ServiceHolder(name, instance));
+    }
+
+    /**
+     * Every service holder must be added through here to keep the name registry
+     * in sync with the component list.
+     *
+     * @param holder
+     */
+    private void register(final ServiceHolder holder) {
+        this.components.add(holder);
+        this.registry.register(holder);
+    }
+
+    public ServiceRegistry getRegistry() {
+        return this.registry;
     }
 
     /**
@@ -142,30 +474,86 @@ public class Injector
 
             // get params
             List<String> params = getParameterServiceName(method);
+            List<Class<?>> types = this.getInjectedParameterTypes(method.getParameterAnnotations(), method.getParameterTypes());
+            Map<Integer, String> deferred = this.deferSuppliers(name, params, types);
 
             ServiceHolder data = new ServiceHolder(
                     name.toLowerCase(),
                     method,
                     params,
-                    ServiceHolder::defaultMethodInvoker,
+                    this.methodInvoker,
                     instance);
-            components.add(data);
+            data.setLazy(method.getAnnotation(Lazy.class) != null);
+            data.setScope(component.scope());
+            data.setDependencyTypes(types);
+            if (!deferred.isEmpty()) {
+                data.setDeferredDependencies(deferred, this::provide);
+            }
+            Map<Integer, Type> multiBindings = this.getMultiBindings(method.getParameterAnnotations(), method.getGenericParameterTypes());
+            if (!multiBindings.isEmpty()) {
+                data.setMultiBindings(multiBindings);
+            }
+            this.register(data);
         }
     }
 
     private void loadServiceRegisters(final Class<?> config) {
+        Object instance = this.newConfiguration(config);
+        if (instance == null) {
+            return;
+        }
+
+        this.loadServiceRegisters(config, instance);
+    }
+
+    /**
+     * Instantiate a configuration class, through its generated wiring if there is one.
+     *
+     * @param config
+     * @return configuration instance or null if the class could not be instantiated
+     */
+    private Object newConfiguration(final Class<?> config) {
+        ServiceWiring wiring = this.findGeneratedWiring(config);
+        if (wiring != null) {
+            return wiring.newConfiguration();
+        }
 
         Object instance = null;
         try {
-            instance = Class.forName(config.getName()).newInstance();
-        } catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
+            instance = config.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
             e.printStackTrace();
         }
-        if (instance == null) {
-            return;
+
+        return instance;
+    }
+
+    /**
+     * Look for the wiring class addy-processor generates next to a configuration.
+     *
+     * @param config
+     * @return the generated wiring or null if none was generated
+     */
+    private ServiceWiring findGeneratedWiring(final Class<?> config) {
+        if (!this.useGeneratedWiring) {
+            return null;
+        }
+        if (this.wirings.containsKey(config)) {
+            return this.wirings.get(config);
         }
 
-        this.loadServiceRegisters(config, instance);
+        ServiceWiring wiring = null;
+        try {
+            Class<?> generated = Class.forName(ServiceWiring.getWiringClassName(config.getName()), true, config.getClassLoader());
+            wiring = (ServiceWiring) generated.newInstance();
+        } catch (ClassNotFoundException e) {
+            // not generated, fall back to reflection
+        } catch (InstantiationException | IllegalAccessException | ClassCastException e) {
+            e.printStackTrace();
+        }
+
+        this.wirings.put(config, wiring);
+        return wiring;
     }
 
     private void registerConstructorServices(final Class<?> config) {
@@ -209,170 +597,1066 @@ public class Injector
                 }
             }
 
+            List<Class<?>> types = this.getInjectedParameterTypes(annotations, constructor.getParameterTypes());
+            Map<Integer, String> deferred = this.deferSuppliers(name, dependencies, types);
+
             ServiceHolder holder = new ServiceHolder(
                     name,
                     constructor,
                     dependencies,
-                    ServiceHolder::defaultConstructorInvoker,
+                    this.constructorInvoker,
                     null);
-            this.components.add(holder);
+            holder.setLazy(component.getAnnotation(Lazy.class) != null);
+            holder.setScope(service.scope());
+            holder.setDependencyTypes(types);
+            if (!deferred.isEmpty()) {
+                holder.setDeferredDependencies(deferred, this::provide);
+            }
+            Map<Integer, Type> multiBindings = this.getMultiBindings(annotations, constructor.getGenericParameterTypes());
+            if (!multiBindings.isEmpty()) {
+                holder.setMultiBindings(multiBindings);
+            }
+            this.register(holder);
+        }
+    }
+
+    /**
+     * Take the parameters of type Supplier out of the dependencies, they are deferred.
+     *
+     * @param service name of the service the parameters belong to
+     * @param names of the injected parameters, deferred ones are removed
+     * @param types of the injected parameters, deferred ones are removed
+     * @return parameter index mapped to the name of every deferred dependency
+     */
+    private Map<Integer, String> deferSuppliers(final String service, final List<String> names, final List<Class<?>> types) {
+        Map<Integer, String> deferred = new HashMap<>();
+        for (int i = types.size() - 1; i >= 0; i--) {
+            if (types.get(i) != Supplier.class) {
+                continue;
+            }
+            if (names.get(i).isEmpty()) {
+                throw new InstantiationError("@Inject of a Supplier must name the service, in @Service " + service);
+            }
+
+            deferred.put(i, names.remove(i).toLowerCase());
+            types.remove(i);
+        }
+
+        return deferred;
+    }
+
+    /**
+     * A Supplier of a service, it is instantiated on the first call and the instance is
+     * kept for later calls.
+     *
+     * @param name of the service
+     * @return supplier handed to a service in place of a deferred dependency
+     */
+    private Supplier<Object> provide(final String name) {
+        final ServiceHolder target = this.registry.get(name);
+        final LazyService service = new LazyService(() -> this.resolveDeferred(name, target));
+        return service::get;
+    }
+
+    private Object resolveDeferred(final String name, final ServiceHolder target) {
+        Object instance = target == null ? null : target.getInstance();
+        if (target != null && instance == null) {
+            final Thread current = Thread.currentThread();
+            final ServiceHolder previous = this.waiting.put(current, target);
+            try {
+                this.crashOnSupplierCycle(target);
+                if (target.isLazy()) {
+                    instance = this.instantiateLazyService(target);
+                } else {
+                    target.initialize(this.registry, this.listener);
+                    instance = target.getInstance();
+                }
+            } finally {
+                if (previous == null) {
+                    this.waiting.remove(current);
+                } else {
+                    this.waiting.put(current, previous);
+                }
+            }
+        } else if (target == null && this.parent != null) {
+            instance = this.parent.getService(name);
+        }
+
+        if (instance == null) {
+            throw new InstantiationError("unable to supply the deferred @Service " + name);
+        }
+
+        return instance;
+    }
+
+    /**
+     * A Supplier called while its service is created, directly or by a service waiting on
+     * this thread, would wait on itself.
+     *
+     * @param target service supplied to the current thread
+     */
+    private void crashOnSupplierCycle(final ServiceHolder target) {
+        final List<ServiceHolder> constructing = ServiceHolder.constructing();
+        final List<String> cycle = new ArrayList<>();
+        final int index = constructing.indexOf(target);
+        if (index >= 0) {
+            for (ServiceHolder holder : constructing.subList(index, constructing.size())) {
+                cycle.add(holder.getName());
+            }
+            cycle.add(target.getName());
+            throw new InstantiationError("cycling dependency detected through a Supplier: [" + String.join(" -> ", cycle) + "]");
+        }
+
+        // follow the threads creating the services waited for, back to this thread
+        if (!constructing.isEmpty()) {
+            cycle.add(constructing.get(constructing.size() - 1).getName());
+        }
+        final Set<Thread> visited = new HashSet<>();
+        ServiceHolder next = target;
+        while (next != null) {
+            cycle.add(next.getName());
+            Thread thread = next.getConstructor();
+            if (thread == Thread.currentThread()) {
+                throw new InstantiationError("cycling dependency detected through a Supplier: [" + String.join(" -> ", cycle) + "]");
+            }
+            if (thread == null || !visited.add(thread)) {
+                return;
+            }
+
+            next = this.waiting.get(thread);
         }
     }
 
     public void load() {
-        for (final Class<?> config : this.configs) {
+        this.discover(this.configs, this.instances);
+        this.inheritParentServices();
+        this.resolveDependencyTypes();
+    }
+
+    /**
+     * Register the services of the given configurations, and remember which configuration
+     * provides which service.
+     *
+     * @param configs configuration classes
+     * @param instances configuration instances
+     */
+    private void discover(final List<Class<?>> configs, final List<Object> instances) {
+        for (final Class<?> config : configs) {
             if (config.getAnnotation(Configuration.class) == null) {
                 continue;
             }
 
-            // check if content of supplied list have any GameComponent
-            if (config.getAnnotation(ServiceLinker.class) != null) {
-                this.registerConstructorServices(config);
+            final int first = this.components.size();
+
+            // use the wiring generated at compile time when available
+            ServiceWiring wiring = this.findGeneratedWiring(config);
+            if (wiring != null) {
+                wiring.registerLinkedServices(this);
+                wiring.registerServices(this, wiring.newConfiguration());
+            } else {
+                // check if content of supplied list have any GameComponent
+                if (config.getAnnotation(ServiceLinker.class) != null) {
+                    this.registerConstructorServices(config);
+                }
+
+                // check methods
+                this.loadServiceRegisters(config);
             }
 
-            // check methods
-            this.loadServiceRegisters(config);
+            this.recordServices(config, first);
         }
 
         // also check live instances if injected
         // live instances can only use methods, otherwise the instance don't need
         // to actually use the GameComponent and it can be set from a config file
         // inside the game pkg in stead.
-        for (Object instance : this.instances) {
+        for (Object instance : instances) {
             Class<?> config = instance.getClass();
             if (config.getAnnotation(Configuration.class) == null) {
                 continue;
             }
 
-            this.loadServiceRegisters(instance.getClass(), instance);
+            final int first = this.components.size();
+            ServiceWiring wiring = this.findGeneratedWiring(config);
+            if (wiring != null) {
+                wiring.registerServices(this, instance);
+            } else {
+                this.loadServiceRegisters(instance.getClass(), instance);
+            }
+
+            this.recordServices(config, first);
         }
     }
 
-    public void instantiateComponents() {
-        for (ServiceHolder component : this.components) {
-            component.initialize(this.components);
+    /**
+     * @param config configuration that registered the services
+     * @param first index of its first service in the components
+     */
+    private void recordServices(final Class<?> config, final int first) {
+        List<String> names = new ArrayList<>();
+        for (ServiceHolder holder : this.components.subList(first, this.components.size())) {
+            names.add(holder.getName());
         }
+
+        this.servicesByConfig.put(config.getName(), names);
     }
 
-    public void crashOnDuplicates() {
-        // check for name duplicates
-        for (ServiceHolder a : this.components) {
-            int counter = 0;
-            final String name = a.getName();
-            for (ServiceHolder b : this.components) {
-                if (name.equals(b.getName())) {
-                    counter++;
+    /**
+     * Register the parent services that are depended on, but not provided by this injector.
+     */
+    private void inheritParentServices() {
+        if (this.parent == null) {
+            return;
+        }
+
+        for (ServiceHolder holder : new ArrayList<>(this.components)) {
+            List<String> dependencies = new ArrayList<>(holder.getRequiredDependencies());
+            dependencies.addAll(holder.getDeferredDependencies().values());
+            for (String dependency : dependencies) {
+                if (dependency.isEmpty() || this.registry.contains(dependency) || this.stale.contains(dependency)) {
+                    continue;
                 }
-            }
 
-            if (counter > 1) {
-                throw new StackOverflowError("found " + Integer.toString(counter) + " instance of @Service " + a.toStringWithDependencies());
+                Object instance = this.parent.getService(dependency);
+                if (instance == null) {
+                    continue;
+                }
+
+                ServiceHolder shared = new ServiceHolder(dependency, instance);
+                this.inherited.add(shared);
+                this.register(shared);
             }
         }
     }
 
-    public void crashOnNullInstances() {
-        // check for null instances and give a warning or fail
-        for (ServiceHolder component : this.components) {
-            if (component.getInstance() != null) {
-                continue;
-            }
+    /**
+     * Index every service by its declared type, and resolve the dependencies injected by type.
+     */
+    private void resolveDependencyTypes() {
+        this.indexTypes();
+        if (this.parent instanceof ServiceContext) {
+            this.inheritParentServiceTypes((ServiceContext) this.parent);
+        }
 
-            String err = "instance for service was null: " + component.getName();
-            if (this.failOnNullInstance) {
-                throw new InstantiationError(err);
-            } else {
-                //Log.e(TAG, err);
-                // TODO: logging
+        for (ServiceHolder holder : this.components) {
+            if (holder.hasMultiBindings()) {
+                this.crashOnUntypedServices(holder.getName());
             }
+            holder.resolveDependencyTypes(this.types);
         }
     }
 
-    public void branchOutDependencyTree() {
-        for (final ServiceHolder component : this.components) {
-            component.createDependencyTree(this.components);
+    /**
+     * Index every registered service by its declared type.
+     */
+    private void indexTypes() {
+        this.types = new TypeIndex<>();
+        this.untyped = new ArrayList<>();
+        for (ServiceHolder holder : this.components) {
+            this.types.add(holder.getType(), holder);
+            if (holder.getType() == null && holder.getInstance() == null) {
+                this.untyped.add(holder.getName());
+            }
         }
     }
 
-    public void sortByDependencies() {
-        // sort based on number of dependencies to speed up next sort
-        this.components.sort((left, right) -> {
-            int a = left.nrOfDependencies();
-            int b = right.nrOfDependencies();
+    /**
+     * Multibindings collect services by their type, crash rather than silently leave out
+     * the services registered without one, eg. by wiring of an older addy-processor.
+     *
+     * @param target service or class the multibinding is injected into
+     */
+    private void crashOnUntypedServices(final String target) {
+        if (!this.untyped.isEmpty()) {
+            throw new InstantiationError("services without a declared type can't be collected into the multibinding of "
+                    + target + ", regenerate their wiring: " + this.untyped);
+        }
+    }
 
-            if (a < b) {
-                return -1;
-            } else if (a > b) {
-                return 1;
+    /**
+     * Register the parent services that are injected by type, but not provided by this injector.
+     *
+     * @param parent loaded context
+     */
+    private void inheritParentServiceTypes(final ServiceContext parent) {
+        for (ServiceHolder holder : new ArrayList<>(this.components)) {
+            List<Class<?>> dependencyTypes = holder.getDependencyTypes();
+            if (dependencyTypes == null) {
+                continue;
             }
 
-            return 0;
-        });
-
-        boolean unsorted = true;
-        while (unsorted) {
-            unsorted = false;
-            for (int i = 0; i < this.components.size() && !unsorted; i++) {
-                ServiceHolder current = this.components.get(i);
-                if (current.getInstance() != null) {
+            List<String> dependencies = holder.getRequiredDependencies();
+            for (int i = 0; i < dependencies.size(); i++) {
+                Class<?> type = dependencyTypes.get(i);
+                if (!dependencies.get(i).isEmpty() || type == null || !this.types.get(type).isEmpty() || isMultiBinding(type)) {
                     continue;
                 }
 
-                List<String> deps = current.getDependencies();
-                for (int j = i + 1; j < this.components.size() && !unsorted; j++) {
-                    String n = this.components.get(j).getName();
-                    for (String dep : deps) {
-                        if (!dep.equals(n)) {
-                            continue;
-                        }
-                        unsorted = true;
-                        // move current component below found dependency
-                        for (int y = i + 1; y <= j; y++) {
-                            this.components.set(y - 1, this.components.get(y));
-                        }
-                        this.components.set(j, current);
-                        break;
-                    }
+                String name = parent.getServiceName(type);
+                if (name == null || this.registry.contains(name) || this.stale.contains(name)) {
+                    continue;
                 }
+
+                ServiceHolder shared = new ServiceHolder(name, parent.getService(name));
+                shared.setType(type);
+                this.inherited.add(shared);
+                this.register(shared);
+                this.types.add(type, shared);
             }
         }
     }
 
-    public void installServices(ServiceSetter ctx) {
-        // add instances to game context
-        for (ServiceHolder component : this.components) {
-            ctx.setService(component.getName().toLowerCase(), component.getInstance());
+    /**
+     * Re-create the services of changed configurations in the context this injector loaded,
+     * eg. after the classes were redefined by a debugger or loaded by a new class loader.
+     * Only the services of the given configurations, and the services that depend on them,
+     * are instantiated again, any other service keeps its instance.
+     *
+     * The new services are instantiated before the context is touched, so a failing reload
+     * leaves the loaded services as they were. They are then installed in one update of the
+     * context, and finally the replaced Closer services are closed, dependents first.
+     * Services that received a replaced service through a @DepWire method only, keep it.
+     *
+     * @param ctx context this injector was loaded into
+     * @param changed configuration classes, matched to the loaded ones by class name
+     * @param instances configuration instances, matched to the loaded ones by class name
+     * @return names of the services that were instantiated again
+     */
+    public Set<String> reload(final ServiceContext ctx, final List<Class<?>> changed, final List<Object> instances) {
+        final Set<String> changedConfigs = new HashSet<>();
+        for (Class<?> config : changed) {
+            changedConfigs.add(config.getName());
+        }
+        for (Object instance : instances) {
+            changedConfigs.add(instance.getClass().getName());
         }
-    }
 
-    public void findDepWireMethodsAndPopulate() {
-        for (Class<?> config : this.configs) {
-            if (config.getAnnotation(Configuration.class) == null) {
-                continue;
+        // the new services of the changed configurations
+        final Injector reloaded = this.derive(changed);
+        reloaded.parent = ctx;
+        reloaded.discover(changed, instances);
+
+        final Set<String> previous = new HashSet<>();
+        for (String config : changedConfigs) {
+            previous.addAll(this.servicesByConfig.getOrDefault(config, Collections.emptyList()));
+        }
+        final Set<String> removed = new HashSet<>(previous);
+        final Set<String> affected = new LinkedHashSet<>(previous);
+        for (ServiceHolder holder : reloaded.components) {
+            removed.remove(holder.getName());
+            affected.add(holder.getName());
+        }
+        for (Map.Entry<String, List<String>> config : this.servicesByConfig.entrySet()) {
+            for (String name : config.getValue()) {
+                if (!changedConfigs.contains(config.getKey()) && reloaded.registry.contains(name)) {
+                    throw new InstantiationError("unable to reload, @Service " + name + " is already provided by " + config.getKey());
+                }
             }
+        }
 
-            Object instance = null;
-            try {
-                instance = Class.forName(config.getName()).newInstance();
-            } catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
-                e.printStackTrace();
+        // every service created from a replaced service must be replaced as well
+        final ArrayDeque<String> queue = new ArrayDeque<>(affected);
+        while (!queue.isEmpty()) {
+            for (String dependent : ctx.getServiceDependents(queue.poll())) {
+                if (affected.add(dependent)) {
+                    queue.add(dependent);
+                }
             }
-            if (instance == null) {
+        }
+
+        // dependents provided by unchanged configurations are discovered again
+        final List<Class<?>> owners = new ArrayList<>();
+        final List<Object> ownerInstances = new ArrayList<>();
+        for (Map.Entry<String, List<String>> config : this.servicesByConfig.entrySet()) {
+            if (changedConfigs.contains(config.getKey()) || Collections.disjoint(config.getValue(), affected)) {
                 continue;
             }
 
-            this.populateGameDepWireMethods(instance);
+            for (Class<?> candidate : this.configs) {
+                if (candidate.getName().equals(config.getKey())) {
+                    owners.add(candidate);
+                }
+            }
+            for (Object candidate : this.instances) {
+                if (candidate.getClass().getName().equals(config.getKey())) {
+                    ownerInstances.add(candidate);
+                }
+            }
         }
-        for (ServiceHolder holder : this.components) {
-            Object instance = holder.getInstance();
-            this.populateGameDepWireMethods(instance);
+        reloaded.discover(owners, ownerInstances);
+        reloaded.retain(affected);
+        for (String name : affected) {
+            if (!removed.contains(name) && !reloaded.registry.contains(name)) {
+                throw new InstantiationError("unable to reload @Service " + name + ", its configuration is unknown");
+            }
         }
 
-        // clear Game Components from this instance to free up memory
-        this.components.clear();
-    }
+        // only the services that are not replaced may be taken from the context
+        reloaded.stale = affected;
+        reloaded.inheritParentServices();
+        reloaded.resolveDependencyTypes();
+        reloaded.crashOnDuplicates();
+        reloaded.branchOutDependencyTree();
+        reloaded.sortByDependencies();
+        reloaded.instantiateComponents();
+        reloaded.crashOnNullInstances();
+
+        final Map<String, Object> replaced = new LinkedHashMap<>();
+        final Map<String, List<String>> dependencies = new HashMap<>();
+        for (String name : affected) {
+            Object service = ctx.getInstantiatedService(name);
+            if (service != null) {
+                replaced.put(name, service);
+                dependencies.put(name, ctx.getServiceDependencies(name));
+            }
+        }
 
-    private void populateGameDepWireMethods(final Object instance) {
+        final Set<String> created = new LinkedHashSet<>();
+        for (ServiceHolder holder : reloaded.components) {
+            if (!reloaded.inherited.contains(holder)) {
+                created.add(holder.getName());
+            }
+        }
+
+        ctx.update(reloaded::installServices, removed);
+        reloaded.findDepWireMethodsAndPopulate();
+        ctx.closeServices(replaced, dependencies);
+
+        for (String config : changedConfigs) {
+            this.servicesByConfig.put(config, reloaded.servicesByConfig.getOrDefault(config, Collections.emptyList()));
+        }
+        replaceByName(this.configs, changed, Class::getName);
+        replaceByName(this.instances, instances, instance -> instance.getClass().getName());
+
+        return created;
+    }
+
+    /**
+     * @param configs configuration classes of the new injector
+     * @return injector with the same settings as this one
+     */
+    private Injector derive(final List<Class<?>> configs) {
+        Injector injector = new Injector(configs);
+        injector.failOnNullInstance = this.failOnNullInstance;
+        injector.methodInvoker = this.methodInvoker;
+        injector.constructorInvoker = this.constructorInvoker;
+        injector.listener = this.listener;
+        injector.useGeneratedWiring = this.useGeneratedWiring;
+        injector.annotations = this.annotations;
+
+        return injector;
+    }
+
+    /**
+     * Forget every registered service that is not named.
+     *
+     * @param names services to keep
+     */
+    private void retain(final Collection<String> names) {
+        List<ServiceHolder> registered = new ArrayList<>(this.components);
+        this.components.clear();
+        this.registry.clear();
+        for (ServiceHolder holder : registered) {
+            if (names.contains(holder.getName())) {
+                this.register(holder);
+            }
+        }
+    }
+
+    private static <T> void replaceByName(final List<T> list, final List<? extends T> replacements, final Function<T, String> name) {
+        for (T replacement : replacements) {
+            boolean found = false;
+            for (int i = 0; i < list.size() && !found; i++) {
+                if (name.apply(list.get(i)).equals(name.apply(replacement))) {
+                    list.set(i, replacement);
+                    found = true;
+                }
+            }
+            if (!found) {
+                list.add(replacement);
+            }
+        }
+    }
+
+    /**
+     * Replace load, crashOnDuplicates, branchOutDependencyTree and sortByDependencies with
+     * a plan written by saveWiringPlan, if the configuration classes are unchanged.
+     *
+     * @param file plan to read
+     * @return true if the services were loaded from the plan, false if it must be loaded as usual
+     * @see WiringPlan
+     */
+    public boolean loadWiringPlan(final Path file) {
+        if (!this.instances.isEmpty() || this.parent != null) {
+            return false;
+        }
+        String hash = WiringPlan.hash(this.configs);
+        if (hash == null) {
+            return false;
+        }
+
+        Map<String, ServiceHolder> instances = new HashMap<>();
+        for (ServiceHolder holder : this.components) {
+            instances.put(holder.getName(), holder);
+        }
+
+        List<ServiceHolder> planned;
+        try {
+            planned = WiringPlan.read(file, hash, this.configs, this::newConfiguration, instances,
+                    this.methodInvoker, this.constructorInvoker);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (planned == null || planned.size() < instances.size()) {
+            return false;
+        }
+
+        this.components.clear();
+        this.registry.clear();
+        for (ServiceHolder holder : planned) {
+            this.register(holder);
+        }
+        // planned dependencies are resolved already, @DepWire methods and roots are not
+        this.indexTypes();
+        this.recordPlannedServices();
+
+        return true;
+    }
+
+    /**
+     * Find the configuration of every service read from a wiring plan, as discover would have.
+     */
+    private void recordPlannedServices() {
+        Map<String, String> linked = new HashMap<>();
+        for (Class<?> config : this.configs) {
+            this.servicesByConfig.put(config.getName(), new ArrayList<>());
+            ServiceLinker linker = config.getAnnotation(ServiceLinker.class);
+            if (linker != null) {
+                for (Class<?> component : linker.value()) {
+                    linked.put(component.getName(), config.getName());
+                }
+            }
+        }
+
+        for (ServiceHolder holder : this.components) {
+            Object function = holder.getFunction();
+            String config = null;
+            if (function instanceof Method) {
+                config = ((Method) function).getDeclaringClass().getName();
+            } else if (function instanceof Constructor) {
+                config = linked.get(((Constructor<?>) function).getDeclaringClass().getName());
+            }
+
+            List<String> names = config == null ? null : this.servicesByConfig.get(config);
+            if (names != null) {
+                names.add(holder.getName());
+            }
+        }
+    }
+
+    /**
+     * Write the services, once sorted by their dependencies, to a plan for the next start.
+     * Configuration instances, parent services and generated wiring can't be planned.
+     *
+     * @param file plan to write
+     * @return true if the plan was written
+     * @see WiringPlan
+     */
+    public boolean saveWiringPlan(final Path file) {
+        if (!this.instances.isEmpty() || this.parent != null) {
+            return false;
+        }
+        String hash = WiringPlan.hash(this.configs);
+        if (hash == null) {
+            return false;
+        }
+
+        try {
+            return WiringPlan.write(file, hash, this.components);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public void instantiateComponents() {
+        this.pruneUnreachable();
+
+        // services returning a CompletionStage complete on their own threads, meanwhile the
+        // services that don't depend on them are instantiated here
+        List<CompletableFuture<Object>> pending = new ArrayList<>();
+        for (ServiceHolder component : this.eagerComponents()) {
+            pending.add(component.initializeAsync(this.registry, this.listener));
+        }
+        for (CompletableFuture<Object> component : pending) {
+            ServiceHolder.await(component);
+        }
+    }
+
+    /**
+     * Instantiate the services on the given executor, every service is started as soon as
+     * its dependencies are ready. Blocks until every service has been instantiated.
+     * The services must already be sorted by their dependencies.
+     *
+     * @param executor runs the service initializers, eg. ForkJoinPool.commonPool()
+     */
+    public void instantiateComponents(final Executor executor) {
+        this.pruneUnreachable();
+        new ParallelInstantiator(this.eagerComponents(), this.registry, executor, this.listener).instantiate();
+    }
+
+    /**
+     * Forget every service the roots don't reach. The services of @DepWire methods, of the
+     * configurations and of every reached service, are reached as well.
+     */
+    private void pruneUnreachable() {
+        if (this.roots.isEmpty() && this.rootClients.isEmpty()) {
+            return;
+        }
+
+        final Set<String> names = new HashSet<>(this.roots);
+        for (Class<?> client : this.rootClients) {
+            names.addAll(this.getDepWireInjections(client));
+        }
+        for (Class<?> config : this.configs) {
+            names.addAll(this.getDepWireInjections(config));
+        }
+        for (Object config : this.instances) {
+            names.addAll(this.getDepWireInjections(config.getClass()));
+        }
+
+        final int size = this.components.size();
+        final DependencyPlanner graph = new DependencyPlanner(this.components, this.registry);
+        final Map<String, Integer> ids = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ids.put(this.components.get(i).getName(), i);
+        }
+
+        BitSet reached;
+        int found;
+        do {
+            found = names.size();
+            BitSet roots = new BitSet(size);
+            for (String name : names) {
+                Integer id = ids.get(name);
+                if (id == null && this.roots.contains(name)) {
+                    throw new InstantiationError("unknown root @Service " + name);
+                } else if (id != null) {
+                    roots.set(id);
+                }
+            }
+
+            // reached services may be wired with, or be supplied, services they don't depend on
+            reached = graph.reach(roots);
+            for (int i = reached.nextSetBit(0); i >= 0; i = reached.nextSetBit(i + 1)) {
+                ServiceHolder holder = this.components.get(i);
+                names.addAll(holder.getDeferredDependencies().values());
+                if (holder.getType() != null) {
+                    names.addAll(this.getDepWireInjections(holder.getType()));
+                }
+            }
+        } while (names.size() != found);
+
+        final Set<String> kept = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            ServiceHolder holder = this.components.get(i);
+            if (reached.get(i) || holder.getInstance() != null) {
+                kept.add(holder.getName());
+            } else {
+                this.pruned.add(holder.getName());
+            }
+        }
+        if (this.pruned.isEmpty()) {
+            return;
+        }
+
+        this.retain(kept);
+        this.listener.servicesPruned(this.getPrunedServices());
+    }
+
+    /**
+     * @param type class with @DepWire constructors or methods
+     * @return names of every service they inject, all candidates for those injected by type
+     */
+    private Set<String> getDepWireInjections(final Class<?> type) {
+        Set<String> names = new HashSet<>();
+        List<Executable> wired = new ArrayList<>();
+        wired.addAll(Arrays.asList(type.getConstructors()));
+        wired.addAll(Arrays.asList(type.getMethods()));
+        for (Executable executable : wired) {
+            if (executable.getAnnotation(DepWire.class) == null) {
+                continue;
+            }
+
+            Annotation[][] annotations = executable.getParameterAnnotations();
+            Type[] types = executable.getGenericParameterTypes();
+            for (int i = 0; i < annotations.length && i < types.length; i++) {
+                for (Annotation a : annotations[i]) {
+                    if (a.annotationType() != Inject.class) {
+                        continue;
+                    }
+
+                    String name = ((Inject) a).value();
+                    if (!name.isEmpty()) {
+                        names.add(name.toLowerCase());
+                    } else if (this.types != null) {
+                        Class<?> raw = isMultiBinding(types[i]) ? ServiceHolder.elementType(types[i]) : executable.getParameterTypes()[i];
+                        for (ServiceHolder candidate : this.types.get(raw)) {
+                            names.add(candidate.getName());
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Lazy services are left out, unless a service that must be instantiated depends on them.
+     *
+     * @return services to instantiate while loading, in the same order as the components
+     */
+    private List<ServiceHolder> eagerComponents() {
+        final int size = this.components.size();
+        BitSet roots = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            ServiceHolder component = this.components.get(i);
+            if (!component.isLazy() && !component.isScoped()) {
+                roots.set(i);
+            }
+        }
+        if (roots.cardinality() == size) {
+            return this.components;
+        }
+
+        BitSet required = new DependencyPlanner(this.components, this.registry).reach(roots);
+        if (required.cardinality() == size) {
+            return this.components;
+        }
+
+        List<ServiceHolder> eager = new ArrayList<>(required.cardinality());
+        for (int i = required.nextSetBit(0); i >= 0; i = required.nextSetBit(i + 1)) {
+            eager.add(this.components.get(i));
+        }
+
+        return eager;
+    }
+
+    /**
+     * Instantiate a lazy service, and any lazy dependencies, then invoke their @DepWire methods.
+     * Lazy services are instantiated one at the time, each exactly once.
+     *
+     * @param holder
+     * @return the service instance
+     */
+    private Object instantiateLazyService(final ServiceHolder holder) {
+        synchronized (this.lazyLock) {
+            holder.initialize(this.registry, this.listener);
+            this.wireLazyService(holder);
+
+            return holder.getInstance();
+        }
+    }
+
+    private void wireLazyService(final ServiceHolder holder) {
+        if (!holder.isLazy() || holder.getInstance() == null || !this.wiredLazyServices.add(holder)) {
+            return;
+        }
+
+        // dependencies wire their own dependencies in turn
+        for (String dependency : holder.getRequiredDependencies()) {
+            ServiceHolder candidate = this.registry.get(dependency);
+            if (candidate != null) {
+                this.wireLazyService(candidate);
+            }
+        }
+
+        this.populateGameDepWireMethods(holder.getInstance());
+    }
+
+    public void crashOnDuplicates() {
+        // name duplicates are counted by the registry as services are registered
+        for (Map.Entry<String, Integer> duplicate : this.registry.getDuplicates().entrySet()) {
+            ServiceHolder holder = this.registry.get(duplicate.getKey());
+            throw new StackOverflowError("found " + Integer.toString(duplicate.getValue()) + " instance of @Service " + holder.toStringWithDependencies());
+        }
+    }
+
+    public void crashOnNullInstances() {
+        // check for null instances and give a warning or fail
+        for (ServiceHolder component : this.components) {
+            if (component.getInstance() != null || component.isLazy() || component.isScoped()) {
+                continue;
+            }
+
+            String err = "instance for service was null: " + component.getName();
+            if (this.failOnNullInstance) {
+                throw new InstantiationError(err);
+            } else {
+                //Log.e(TAG, err);
+                // TODO: logging
+            }
+        }
+    }
+
+    /**
+     * Sort the services by their dependencies and crash on dependency cycles.
+     * Only the direct dependencies are kept, transitive ones are found on demand.
+     */
+    public void branchOutDependencyTree() {
+        this.planner = new DependencyPlanner(this.components, this.registry);
+        this.planner.plan();
+
+        if (this.planner.hasCycles()) {
+            StringBuilder err = new StringBuilder("cycling dependency detected:");
+            for (List<String> cycle : this.planner.getCycles()) {
+                err.append(" [").append(String.join(" -> ", cycle)).append("]");
+            }
+
+            throw new InstantiationError(err.toString());
+        }
+
+
+        this.crashOnNarrowerScopes();
+        this.crashOnUnknownDeferredDependencies();
+    }
+
+    /**
+     * Deferred dependencies don't take part in the dependency tree, but must still exist.
+     * A Supplier keeps the instance it supplied, so scoped services can't be deferred.
+     */
+    private void crashOnUnknownDeferredDependencies() {
+        for (final ServiceHolder component : this.components) {
+            for (final String name : component.getDeferredDependencies().values()) {
+                final ServiceHolder dependency = this.registry.get(name);
+                if (dependency == null) {
+                    throw new InstantiationError("unknown deferred dependency " + name + " for @Service " + component.getName());
+                } else if (dependency.isScoped()) {
+                    throw new InstantiationError("@Service " + component.getName() + " cannot take the scoped @Service "
+                            + name + " as a Supplier");
+                }
+            }
+        }
+    }
+
+    /**
+     * A service can't hold on to a service that lives shorter than itself, eg. a singleton
+     * can't depend on a request scoped service.
+     */
+    private void crashOnNarrowerScopes() {
+        for (final ServiceHolder component : this.components) {
+            for (final String name : component.getRequiredDependencies()) {
+                final ServiceHolder dependency = this.registry.get(name);
+                if (dependency != null && dependency.getScope().compareTo(component.getScope()) > 0) {
+                    throw new InstantiationError("@Service " + component.getName() + " with scope " + component.getScope()
+                            + " cannot depend on " + dependency.getName() + " with the narrower scope " + dependency.getScope());
+                }
+            }
+        }
+    }
+
+    /**
+     * Order the services such that dependencies are instantiated before their dependents.
+     */
+    public void sortByDependencies() {
+        if (this.planner == null) {
+            this.branchOutDependencyTree();
+        }
+
+        List<ServiceHolder> order = this.planner.getOrder();
+        this.components.clear();
+        this.components.addAll(order);
+        this.planner = null;
+    }
+
+    public void installServices(ServiceSetter ctx) {
+        // add instances to game context
+        for (ServiceHolder component : this.components) {
+            if (this.inherited.contains(component)) {
+                // already installed in the parent context
+                continue;
+            }
+
+            ctx.setServiceDependencies(component.getName(), component.getRequiredDependencies());
+            if (component.isScoped()) {
+                ctx.setScopedService(component.getName(), new ScopedService(
+                        component.getScope(),
+                        (ServiceGetter getter) -> this.newScopedInstance(component, getter),
+                        component.getType()));
+                continue;
+            }
+            if (component.isLazy() && component.getInstance() == null) {
+                ctx.setLazyService(component.getName(), new LazyService(() -> this.instantiateLazyService(component), component.getType(), component::getInstance));
+                continue;
+            }
+
+            ctx.setService(component.getName(), component.getInstance());
+        }
+
+        ctx.freeze();
+    }
+
+    /**
+     * Create a new instance of a scoped service, its dependencies are looked up in the
+     * current scope of the context.
+     *
+     * @param holder scoped service
+     * @param getter service context the service is installed in
+     * @return the new instance
+     */
+    private Object newScopedInstance(final ServiceHolder holder, final ServiceGetter getter) {
+        final List<String> names = holder.getRequiredDependencies();
+        final Object[] dependencies = new Object[names.size()];
+        for (int i = 0; i < dependencies.length; i++) {
+            dependencies[i] = getter.getService(names.get(i));
+            if (dependencies[i] == null) {
+                throw new InstantiationError("missing dependency " + names.get(i) + " for scoped @Service " + holder.getName());
+            }
+        }
+
+        return holder.newInstance(dependencies, this.listener);
+    }
+
+    public void findDepWireMethodsAndPopulate() {
+        for (Class<?> config : this.configs) {
+            if (config.getAnnotation(Configuration.class) == null) {
+                continue;
+            }
+
+            Object instance = this.newConfiguration(config);
+            if (instance == null) {
+                continue;
+            }
+
+            this.populateGameDepWireMethods(instance);
+        }
+        boolean pendingLazyServices = false;
+        for (ServiceHolder holder : this.components) {
+            Object instance = holder.getInstance();
+            if (instance == null) {
+                // lazy services are wired once they are instantiated
+                pendingLazyServices = pendingLazyServices || holder.isLazy();
+                continue;
+            }
+            if (holder.isLazy() && !this.wiredLazyServices.add(holder)) {
+                continue;
+            }
+            if (this.inherited.contains(holder)) {
+                // wired by the parent
+                continue;
+            }
+
+            this.populateGameDepWireMethods(instance);
+            if (!getWarmUpMethods(instance.getClass()).isEmpty()) {
+                // validated here, such that loading fails before any warm-up runs
+                this.warmUps.put(holder.getName(), instance);
+            }
+        }
+
+        // clear Game Components from this instance to free up memory,
+        // lazy services still need the registry to resolve their dependencies
+        this.components.clear();
+        if (!pendingLazyServices) {
+            this.registry.clear();
+            this.types = null;
+        }
+        this.inherited.clear();
+    }
+
+    /**
+     * Call the @WarmUp methods of the wired services, on a pool of one thread per processor
+     * at most. Blocks until every service is warmed up.
+     *
+     * @see WarmUp
+     */
+    public void warmUp() {
+        if (this.warmUps.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.min(this.warmUps.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, (Runnable r) -> {
+            Thread thread = new Thread(r, "addy-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            this.warmUp(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Call the @WarmUp methods of the wired services on the given executor, every service
+     * is warmed up by one task. Blocks until every service is warmed up.
+     *
+     * @param executor runs the warm-ups, should be bounded to the number of processors
+     */
+    public void warmUp(final Executor executor) {
+        final Map<String, Object> services = new LinkedHashMap<>(this.warmUps);
+        this.warmUps.clear();
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Map.Entry<String, Object> service : services.entrySet()) {
+            final String name = service.getKey();
+            final Object instance = service.getValue();
+            final List<Method> methods = getWarmUpMethods(instance.getClass());
+            pending.add(CompletableFuture.runAsync(() -> this.warmUp(name, instance, methods), executor));
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static List<Method> getWarmUpMethods(final Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (method.getAnnotation(WarmUp.class) == null) {
+                continue;
+            }
+            if (method.getParameterCount() != 0) {
+                throw new InstantiationError("@WarmUp method " + type.getName() + "#" + method.getName() + " must not take parameters");
+            }
+
+            methods.add(method);
+        }
+
+        return methods;
+    }
+
+    /**
+     * Call every method within its budget, a failing warm-up leaves the service cold but
+     * does not fail loading, it is reported to the listener.
+     */
+    private void warmUp(final String name, final Object instance, final List<Method> methods) {
+        final long start = System.nanoTime();
+        int iterations = 0;
+        for (Method method : methods) {
+            WarmUp budget = method.getAnnotation(WarmUp.class);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget.millis());
+            try {
+                for (int i = 0; i < budget.iterations(); i++) {
+                    if (budget.millis() > 0 && System.nanoTime() - deadline > 0) {
+                        break;
+                    }
+
+                    this.methodInvoker.initiate(method, new Object[0], instance);
+                    iterations++;
+                }
+            } catch (Exception e) {
+                Throwable cause = e instanceof InvocationTargetException && e.getCause() != null ? e.getCause() : e;
+                this.listener.warmUpFailed(name, method, cause);
+                return;
+            }
+        }
+
+        this.listener.serviceWarmedUp(name, System.nanoTime() - start, iterations);
+    }
+
+    private void populateGameDepWireMethods(final Object instance) {
         // get all methods with @GameDepWire
         Method[] methods = instance.getClass().getMethods();
         List<Method> gameDepWireMethods = new ArrayList<>();
@@ -386,22 +1670,57 @@ public class Injector
 
         for (Method method : gameDepWireMethods) {
             List<String> params = getParameterServiceName(method);
+            List<Class<?>> types = this.getInjectedParameterTypes(method.getParameterAnnotations(), method.getParameterTypes());
+            Map<Integer, Type> multiBindings = this.getMultiBindings(method.getParameterAnnotations(), method.getGenericParameterTypes());
+            for (int i = 0; i < params.size(); i++) {
+                if (params.get(i).isEmpty() && !multiBindings.containsKey(i)) {
+                    params.set(i, this.getServiceNameByType(types.get(i)));
+                }
+            }
 
             // get dependency instances
             List<Object> dependencies = new ArrayList<>();
-            for (String dependency : params) {
-                for (ServiceHolder candidate : this.components) {
-                    if (dependency.toLowerCase().equals(candidate.getName().toLowerCase())) {
-                        dependencies.add(candidate.getInstance());
-                        break;
+            for (int i = 0; i < params.size(); i++) {
+                String dependency = params.get(i);
+                if (types.get(i) == Supplier.class) {
+                    dependencies.add(this.provide(dependency));
+                    continue;
+                }
+                if (multiBindings.containsKey(i)) {
+                    dependencies.add(this.collectServices(instance, multiBindings.get(i)));
+                    continue;
+                }
+
+                ServiceHolder candidate = this.registry.get(dependency);
+                if (candidate == null) {
+                    Object shared = this.parent == null ? null : this.parent.getService(dependency);
+                    if (shared != null) {
+                        dependencies.add(shared);
                     }
+                    continue;
                 }
+
+                if (candidate.isScoped()) {
+                    // same rule as crashOnNarrowerScopes, the instance wired with is kept beyond its scope
+                    throw new InstantiationError("@DepWire method " + instance.getClass().getName() + "#" + method.getName()
+                            + " cannot depend on " + candidate.getName() + " with the narrower scope " + candidate.getScope());
+                }
+                if (candidate.getInstance() == null && candidate.isLazy()) {
+                    this.instantiateLazyService(candidate);
+                }
+                dependencies.add(candidate.getInstance());
             }
 
             // inject dependencies
             try {
-                ServiceHolder.defaultMethodInvoker(method, dependencies.toArray(), instance);
-            } catch (InvocationTargetException | IllegalAccessException e) {
+                if (this.listener == InjectorListener.NONE) {
+                    this.methodInvoker.initiate(method, dependencies.toArray(), instance);
+                } else {
+                    final long start = System.nanoTime();
+                    this.methodInvoker.initiate(method, dependencies.toArray(), instance);
+                    this.listener.depWireInvoked(instance, method, System.nanoTime() - start);
+                }
+            } catch (Exception e) {
                 System.out.println("unable to inject params into method: " + method.getName() + ", in class: " + instance.getClass().getName());
 
                 StringBuilder paramsStr = new StringBuilder();
@@ -416,6 +1735,45 @@ public class Injector
     }
 
 
+    /**
+     * @param instance being wired, left out of its own services
+     * @param parameter T[] or List<T>
+     * @return every service of type T by name, lazy ones are instantiated
+     */
+    private Object collectServices(final Object instance, final Type parameter) {
+        this.crashOnUntypedServices(instance.getClass().getName());
+        List<ServiceHolder> candidates = this.types == null
+                ? Collections.emptyList()
+                : ServiceHolder.byName(this.types.get(ServiceHolder.elementType(parameter)));
+        List<Object> services = new ArrayList<>(candidates.size());
+        for (ServiceHolder candidate : candidates) {
+            if (candidate.isScoped()) {
+                continue;
+            }
+            if (candidate.getInstance() == null && candidate.isLazy()) {
+                this.instantiateLazyService(candidate);
+            }
+            if (candidate.getInstance() != null && candidate.getInstance() != instance) {
+                services.add(candidate.getInstance());
+            }
+        }
+
+        return ServiceHolder.collect(parameter, services.toArray());
+    }
+
+    /**
+     * Receive timings for every service instantiation and @DepWire invocation.
+     *
+     * @param listener
+     */
+    public void setListener(final InjectorListener listener) {
+        this.listener = listener == null ? InjectorListener.NONE : listener;
+    }
+
+    public InjectorListener getListener() {
+        return this.listener;
+    }
+
     public void setAnnotations(AnnotationConfig annotations) {
         this.annotations = annotations;
     }
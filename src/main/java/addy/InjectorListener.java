@@ -0,0 +1,70 @@
+package addy;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Receives startup timings from the Injector, and shutdown timings from the ServiceContext,
+ * in nanoseconds.
+ *
+ * Services may be instantiated in parallel, so implementations must be thread safe.
+ * When no listener is set, nothing is timed at all.
+ *
+ * @see StartupSummaryReporter
+ */
+public interface InjectorListener
+{
+    /**
+     * Default listener, the Injector skips timing when this is used.
+     */
+    InjectorListener NONE = new InjectorListener() {};
+
+    /**
+     * @param phase that finished
+     * @param nanos time spent in the phase
+     */
+    default void phaseFinished(final LoadPhase phase, final long nanos) {}
+
+    /**
+     * @param name of the service
+     * @param nanos time spent in the service method or constructor, excluding dependencies
+     */
+    default void serviceInstantiated(final String name, final long nanos) {}
+
+    /**
+     * @param instance the @DepWire method was invoked on
+     * @param method the @DepWire method
+     * @param nanos time spent in the method
+     */
+    default void depWireInvoked(final Object instance, final Method method, final long nanos) {}
+
+    /**
+     * @param name of the Closer service
+     * @param nanos time spent in the close method, or until the deadline if it timed out
+     * @param timedOut true if the close method ran past the deadline
+     */
+    default void serviceClosed(final String name, final long nanos, final boolean timedOut) {}
+
+    /**
+     * @param name of the service
+     * @param nanos time spent in its @WarmUp methods
+     * @param iterations number of @WarmUp method calls
+     */
+    default void serviceWarmedUp(final String name, final long nanos, final int iterations) {}
+
+    /**
+     * A failing warm-up leaves its service cold, it does not fail loading. The service is
+     * not reported as warmed up.
+     *
+     * @param name of the service
+     * @param method the @WarmUp method that threw
+     * @param cause what the method threw
+     */
+    default void warmUpFailed(final String name, final Method method, final Throwable cause) {}
+
+    /**
+     * @param names of the services left out, as none of the roots depend on them
+     * @see Injector#addRoots(String...)
+     */
+    default void servicesPruned(final List<String> names) {}
+}
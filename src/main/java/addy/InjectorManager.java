@@ -2,12 +2,23 @@ package addy;
 
 import addy.context.ServiceContext;
 
+import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class InjectorManager
 {
+    private static final ThreadFactory LOADER_THREADS = loaderThreads();
 
     private final ServiceContext ctx;
     private final List<Class<?>> configClasses;
@@ -15,13 +26,22 @@ public class InjectorManager
     private final Injector injector;
     private final AnnotationConfig annotations;
 
+    private Executor executor;
+    private Executor warmUpExecutor;
+    private Path wiringPlan;
+    private volatile CompletableFuture<ServiceContext> loading;
+
     /**
      * A package to be scanned for classes with the annotation @GameConfiguration
      *
      * @param configClasses example: team.adderall.game.Configuration.class
      */
     public InjectorManager(final Class<?>... configClasses) {
-        this.ctx = new ServiceContext();
+        this(new ServiceContext(), configClasses);
+    }
+
+    private InjectorManager(final ServiceContext ctx, final Class<?>... configClasses) {
+        this.ctx = ctx;
 
         this.configClassInstances = new ArrayList<>();
         this.configClasses = new ArrayList<>();
@@ -32,6 +52,120 @@ public class InjectorManager
         this.injector.setAnnotations(this.annotations);
 
         this.injector.addServiceInstance(ServiceContext.NAME, this.ctx);
+        this.executor = null;
+        this.warmUpExecutor = null;
+        this.wiringPlan = null;
+        this.loading = null;
+    }
+
+    /**
+     * Create an injector for an overlay of this one, eg. per tenant. The child only loads
+     * its own configurations, any other dependency is taken from the services of this
+     * injector, which must be loaded first. Lookups in the child context fall through to the
+     * context of this injector.
+     *
+     * @param configClasses configurations of the overlay
+     * @return child injector, not yet loaded
+     */
+    public InjectorManager createChild(final Class<?>... configClasses) {
+        InjectorManager child = new InjectorManager(new ServiceContext(this.ctx), configClasses);
+        child.injector.setParent(this.ctx);
+        return child;
+    }
+
+    /**
+     * Instantiate independent services in parallel on the common fork join pool.
+     *
+     * @see #activateParallelInstantiation(Executor)
+     */
+    public void activateParallelInstantiation() {
+        this.activateParallelInstantiation(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiate independent services in parallel, every service is submitted to the
+     * executor as soon as its dependencies are ready.
+     *
+     * Only the declared dependencies order the services. Unlike sequential loading, services
+     * that don't depend on each other are no longer instantiated in declaration order, so a
+     * service must not rely on side effects of another service it doesn't @Inject.
+     *
+     * @param executor
+     */
+    public void activateParallelInstantiation(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run the @WarmUp methods of the services on the given executor, instead of on a pool of
+     * one thread per processor created for the warm-up.
+     *
+     * @param executor should be bounded, as warm-ups keep their threads busy
+     * @see addy.annotations.WarmUp
+     */
+    public void setWarmUpExecutor(final Executor executor) {
+        this.warmUpExecutor = executor;
+    }
+
+    /**
+     * Invoke service methods and constructors through cached method handles.
+     *
+     * @see MethodHandleInvoker
+     */
+    public void activateMethodHandleInvokers() {
+        this.injector.activateMethodHandleInvokers();
+    }
+
+    /**
+     * Skip discovery and dependency analysis on later starts. After the services are sorted
+     * the first time, they are written to the given file. Later loads read them back, until
+     * the bytecode of the configuration classes changes and the plan is written again.
+     *
+     * @param file eg. a file in a cache directory of the application
+     * @see WiringPlan
+     */
+    public void activateWiringPlan(final Path file) {
+        this.wiringPlan = file;
+    }
+
+    /**
+     * Only instantiate the given services and what they depend on, eg. for a binary that
+     * uses a few of the services of shared configurations. Any other service is pruned.
+     *
+     * @param names of the root services
+     * @see #getPrunedServices()
+     */
+    public void activateRoots(final String... names) {
+        this.injector.addRoots(names);
+    }
+
+    /**
+     * Like activateRoots, the roots are the services injected into the @DepWire constructors
+     * and methods of the given classes, eg. the @Client classes of a binary.
+     *
+     * @param clients classes depending on services
+     */
+    public void activateRootClients(final Class<?>... clients) {
+        this.injector.addRootClients(clients);
+    }
+
+    /**
+     * @return names of the services left out by the roots, once loaded
+     */
+    public List<String> getPrunedServices() {
+        return this.injector.getPrunedServices();
+    }
+
+    /**
+     * Receive timings for every load phase, service instantiation and @DepWire invocation,
+     * and for every Closer when the service context is closed. Must be set before loading.
+     *
+     * @param listener eg. a StartupSummaryReporter
+     * @see StartupSummaryReporter
+     */
+    public void setListener(final InjectorListener listener) {
+        this.injector.setListener(listener);
+        this.ctx.setListener(listener);
     }
 
     /**
@@ -52,48 +186,174 @@ public class InjectorManager
 
         // load all @Services from @Configuration classes
         injector.activateFailOnNullInstance();
-        injector.load();
 
-        // detect duplicates and crash on matches
-        injector.crashOnDuplicates();
+        // a wiring plan of an earlier start replaces discovery and dependency analysis, checking
+        // the plan is part of loading, even when it does not match
+        final AtomicBoolean planned = new AtomicBoolean(false);
+        this.phase(LoadPhase.LOAD, () -> {
+            if (this.wiringPlan != null && injector.loadWiringPlan(this.wiringPlan)) {
+                planned.set(true);
+                return;
+            }
+
+            injector.load();
+        });
+
+        if (!planned.get()) {
+            // detect duplicates and crash on matches
+            this.phase(LoadPhase.CRASH_ON_DUPLICATES, injector::crashOnDuplicates);
+
+            // branch out the dependencies, such that Service A, with dependency B, is
+            // aware of all dependencies of B.
+            this.phase(LoadPhase.BRANCH_OUT_DEPENDENCY_TREE, injector::branchOutDependencyTree);
 
-        // branch out the dependencies, such that Service A, with dependency B, is
-        // aware of all dependencies of B.
-        injector.branchOutDependencyTree();
+            // sort the services, based on dependency requirements
+            this.phase(LoadPhase.SORT_BY_DEPENDENCIES, injector::sortByDependencies);
 
-        // sort the services, based on dependency requirements
-        injector.sortByDependencies();
+            if (this.wiringPlan != null) {
+                injector.saveWiringPlan(this.wiringPlan);
+            }
+        }
 
         // instantiate services/clients and crash if any nil instances are detected
-        injector.instantiateComponents();
-        injector.crashOnNullInstances();
+        if (this.executor == null) {
+            this.phase(LoadPhase.INSTANTIATE_COMPONENTS, injector::instantiateComponents);
+        } else {
+            this.phase(LoadPhase.INSTANTIATE_COMPONENTS, () -> injector.instantiateComponents(this.executor));
+        }
+        this.phase(LoadPhase.CRASH_ON_NULL_INSTANCES, injector::crashOnNullInstances);
 
         // add the component instances to the ServiceContext
-        injector.installServices(ctx);
+        this.phase(LoadPhase.INSTALL_SERVICES, () -> injector.installServices(ctx));
 
         // instantiate clients
         //injector.instantiateClients();
 
         // invoke DepWire methods with required services & clients
-        injector.findDepWireMethodsAndPopulate();
+        this.phase(LoadPhase.FIND_DEP_WIRE_METHODS_AND_POPULATE, injector::findDepWireMethodsAndPopulate);
+
+        // exercise the hot paths of the services before they are used, loading is not done until then
+        if (this.warmUpExecutor == null) {
+            this.phase(LoadPhase.WARM_UP, injector::warmUp);
+        } else {
+            this.phase(LoadPhase.WARM_UP, () -> injector.warmUp(this.warmUpExecutor));
+        }
+    }
+
+    /**
+     * Run a load phase, and time it when a listener is set.
+     *
+     * @param phase
+     * @param step
+     */
+    private void phase(final LoadPhase phase, final Runnable step) {
+        final CompletableFuture<ServiceContext> loading = this.loading;
+        if (loading != null && loading.isCancelled()) {
+            throw new CancellationException("loading was cancelled before " + phase.name().toLowerCase());
+        }
+
+        final InjectorListener listener = this.injector.getListener();
+        if (listener == InjectorListener.NONE) {
+            step.run();
+            return;
+        }
+
+        final long start = System.nanoTime();
+        step.run();
+        listener.phaseFinished(phase, System.nanoTime() - start);
     }
 
     /**
      * Load all instances to memory asynchronously and notify listener
      */
     public void load(final FinishedLoading callback) {
-        final InjectorManager self = this;
-        (new Thread(() -> {
-            // load all the components into memory and initialize them
-            self.loadAndWait();
-
-            // check if we should fire the callback
-            if (callback != null) {
+        this.loadAsync().whenComplete((ctx, e) -> {
+            if (callback == null) {
+                if (e != null) {
+                    e.printStackTrace();
+                }
+            } else if (e != null) {
+                callback.failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
                 callback.trigger();
             }
+        });
+    }
 
-            // TODO: is this thread ever killed?
-        })).start();
+    /**
+     * Load all instances to memory on a new loader thread, a virtual thread when the
+     * runtime has them (Java 21 and later).
+     *
+     * @return completes with the service context once loaded
+     * @see #loadAsync(Executor)
+     */
+    public CompletableFuture<ServiceContext> loadAsync() {
+        return this.loadAsync((Runnable r) -> LOADER_THREADS.newThread(r).start());
+    }
+
+    /**
+     * Load all instances to memory on the given executor. The future completes exceptionally
+     * with what failed the loading. Cancelling it stops the loading before its next phase,
+     * services already instantiated are left as they are.
+     *
+     * @param executor runs loadAndWait
+     * @return completes with the service context once loaded
+     */
+    public CompletableFuture<ServiceContext> loadAsync(final Executor executor) {
+        final CompletableFuture<ServiceContext> loading = new CompletableFuture<>();
+        this.loading = loading;
+        executor.execute(() -> {
+            if (loading.isDone()) {
+                return;
+            }
+
+            try {
+                this.loadAndWait();
+                loading.complete(this.ctx);
+            } catch (Throwable e) {
+                loading.completeExceptionally(e);
+            }
+        });
+
+        return loading;
+    }
+
+    /**
+     * @return virtual threads through Thread.ofVirtual when available, otherwise platform threads
+     */
+    private static ThreadFactory loaderThreads() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object named = builder.getMethod("name", String.class, long.class).invoke(ofVirtual.invoke(null), "addy-loader-", 0L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            // older runtimes have platform threads only
+        }
+
+        return (Runnable r) -> new Thread(r, "addy-loader");
+    }
+
+    /**
+     * Re-create the services of changed configuration classes, and every service that
+     * depends on them, without touching the other services. Must be loaded first.
+     *
+     * @param configClasses eg. configurations redefined by a debugger or a new class loader
+     * @return names of the services that were instantiated again
+     * @see Injector#reload(ServiceContext, List, List)
+     */
+    public synchronized Set<String> reload(final Class<?>... configClasses) {
+        return this.injector.reload(this.ctx, Arrays.asList(configClasses), new ArrayList<>());
+    }
+
+    /**
+     * Like reload, for configurations added through addInstantiadedConfigurations.
+     *
+     * @param instances replace the configuration instances of the same class
+     * @return names of the services that were instantiated again
+     */
+    public synchronized Set<String> reloadInstances(final Object... instances) {
+        return this.injector.reload(this.ctx, new ArrayList<>(), Arrays.asList(instances));
     }
 
     public ServiceContext getSrvCtx() {
@@ -0,0 +1,17 @@
+package addy;
+
+/**
+ * The phases InjectorManager.loadAndWait runs through, in order.
+ */
+public enum LoadPhase
+{
+    LOAD,
+    CRASH_ON_DUPLICATES,
+    BRANCH_OUT_DEPENDENCY_TREE,
+    SORT_BY_DEPENDENCIES,
+    INSTANTIATE_COMPONENTS,
+    CRASH_ON_NULL_INSTANCES,
+    INSTALL_SERVICES,
+    FIND_DEP_WIRE_METHODS_AND_POPULATE,
+    WARM_UP
+}
@@ -0,0 +1,114 @@
+package addy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invokes service methods and constructors through method handles instead of reflection.
+ *
+ * Every Method or Constructor is converted once into a handle of the shape
+ * (Object classInstance, Object[] dependencies)Object, so the access checks and argument
+ * adaption are paid on the first call only. Handles are cached per declaring class using a
+ * ClassValue, which lets the JVM unload the class with its handles, and are shared by every
+ * Injector. Use this invoker when contexts are rebuilt often, eg. per test or per tenant.
+ *
+ * Exceptions thrown by the service are wrapped in an InvocationTargetException, as is done
+ * by the reflective invokers.
+ */
+public class MethodHandleInvoker
+        implements
+        ServiceInvoker
+{
+    public static final MethodHandleInvoker INSTANCE = new MethodHandleInvoker();
+
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final ClassValue<Map<Member, MethodHandle>> handles;
+    private final MethodHandles.Lookup lookup;
+
+    public MethodHandleInvoker() {
+        this(MethodHandles.publicLookup());
+    }
+
+    /**
+     * @param lookup used to create the method handles, eg. to access non public services
+     */
+    public MethodHandleInvoker(final MethodHandles.Lookup lookup) {
+        this.lookup = lookup;
+        this.handles = new ClassValue<Map<Member, MethodHandle>>() {
+            @Override
+            protected Map<Member, MethodHandle> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    }
+
+    @Override
+    public Object initiate(final Object function,
+                           final Object[] dependencies,
+                           final Object classInstance)
+            throws
+            Exception
+    {
+        if (!(function instanceof Method) && !(function instanceof Constructor)) {
+            return null;
+        }
+
+        MethodHandle handle = this.getHandle((Member) function);
+        try {
+            return handle.invokeExact(classInstance, dependencies);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * @param member Method or Constructor
+     * @return cached, or newly created, handle for the member
+     * @throws IllegalAccessException if the member is not accessible by the lookup
+     */
+    public MethodHandle getHandle(final Member member) throws IllegalAccessException {
+        Map<Member, MethodHandle> cache = this.handles.get(member.getDeclaringClass());
+        MethodHandle handle = cache.get(member);
+        if (handle == null) {
+            handle = this.createHandle(member);
+            cache.putIfAbsent(member, handle);
+        }
+
+        return handle;
+    }
+
+    private MethodHandle createHandle(final Member member) throws IllegalAccessException {
+        MethodHandle handle;
+        int nrOfParams;
+        if (member instanceof Constructor) {
+            Constructor<?> constructor = (Constructor<?>) member;
+            nrOfParams = constructor.getParameterCount();
+            handle = this.lookup.unreflectConstructor(constructor);
+            handle = handle.asType(MethodType.genericMethodType(nrOfParams));
+
+            // constructors have no class instance
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        } else {
+            Method method = (Method) member;
+            nrOfParams = method.getParameterCount();
+            handle = this.lookup.unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = handle.asType(MethodType.genericMethodType(nrOfParams));
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            } else {
+                handle = handle.asType(MethodType.genericMethodType(nrOfParams + 1));
+            }
+        }
+
+        return handle.asSpreader(Object[].class, nrOfParams).asType(SPREAD_TYPE);
+    }
+}
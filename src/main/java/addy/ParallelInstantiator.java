@@ -0,0 +1,174 @@
+package addy;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instantiates services on an executor, each service is submitted as soon as every
+ * one of its construction dependencies has been instantiated. Services returning a
+ * CompletionStage release their executor thread, their dependents are submitted once
+ * the stage completes.
+ *
+ * Services are expected to be sorted by their dependencies, such that the services
+ * without dependencies are submitted in the same order as the sequential mode would
+ * have instantiated them.
+ */
+public class ParallelInstantiator
+{
+    private final List<ServiceHolder> components;
+    private final ServiceRegistry registry;
+    private final Executor executor;
+    private final InjectorListener listener;
+
+    private final Map<ServiceHolder, List<ServiceHolder>> dependents;
+    private final Map<ServiceHolder, AtomicInteger> pending;
+
+    private final Object lock;
+    private int running;
+    private int finished;
+    private Throwable failure;
+
+    public ParallelInstantiator(final List<ServiceHolder> components,
+                                final ServiceRegistry registry,
+                                final Executor executor,
+                                final InjectorListener listener)
+    {
+        this.components = components;
+        this.registry = registry;
+        this.executor = executor;
+        this.listener = listener;
+
+        this.dependents = new IdentityHashMap<>(components.size());
+        this.pending = new IdentityHashMap<>(components.size());
+
+        this.lock = new Object();
+        this.running = 0;
+        this.finished = 0;
+        this.failure = null;
+    }
+
+    /**
+     * Instantiate every service and block until all are done, or one has failed.
+     * The first error thrown by a service is rethrown on the calling thread once the
+     * services already running have completed.
+     */
+    public void instantiate() {
+        List<ServiceHolder> ready = new ArrayList<>();
+        for (final ServiceHolder component : this.components) {
+            int count = 0;
+            for (final String name : component.getRequiredDependencies()) {
+                final ServiceHolder dependency = this.registry.get(name);
+                if (dependency == null || dependency.getInstance() != null) {
+                    continue;
+                }
+
+                this.dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(component);
+                count++;
+            }
+
+            this.pending.put(component, new AtomicInteger(count));
+            if (count == 0) {
+                ready.add(component);
+            }
+        }
+
+        for (final ServiceHolder component : ready) {
+            this.submit(component);
+        }
+
+        synchronized (this.lock) {
+            while (this.running > 0) {
+                try {
+                    this.lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InstantiationError("interrupted while instantiating services");
+                }
+            }
+
+            if (this.failure instanceof Error) {
+                throw (Error) this.failure;
+            } else if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            } else if (this.failure != null) {
+                InstantiationError err = new InstantiationError("unable to instantiate services: " + this.failure.getMessage());
+                err.initCause(this.failure);
+                throw err;
+            }
+
+            if (this.finished != this.components.size()) {
+                throw new InstantiationError("services with unresolved dependencies were never instantiated, "
+                        + "was the injector sorted by dependencies?");
+            }
+        }
+    }
+
+    private void submit(final ServiceHolder component) {
+        synchronized (this.lock) {
+            if (this.failure != null) {
+                return;
+            }
+            this.running++;
+        }
+
+        try {
+            this.executor.execute(() -> this.run(component));
+        } catch (RejectedExecutionException e) {
+            this.done(e);
+        }
+    }
+
+    private void run(final ServiceHolder component) {
+        final CompletableFuture<Object> initialized;
+        try {
+            initialized = component.initializeAsync(this.registry, this.listener);
+        } catch (Throwable e) {
+            this.done(e);
+            return;
+        }
+
+        // a service returning a CompletionStage holds no thread while it completes
+        initialized.whenComplete((instance, e) -> {
+            if (e != null) {
+                this.done(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                this.completed(component);
+            }
+        });
+    }
+
+    private void completed(final ServiceHolder component) {
+        List<ServiceHolder> next = this.dependents.get(component);
+        if (next != null) {
+            for (final ServiceHolder dependent : next) {
+                if (this.pending.get(dependent).decrementAndGet() == 0) {
+                    this.submit(dependent);
+                }
+            }
+        }
+
+        this.done(null);
+    }
+
+    private void done(final Throwable e) {
+        synchronized (this.lock) {
+            if (e == null) {
+                this.finished++;
+            } else if (this.failure == null) {
+                this.failure = e;
+            }
+
+            this.running--;
+            if (this.running == 0) {
+                this.lock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package addy;
+
+/**
+ * Implemented by scoped services that hold per scope state. The state must be reset before
+ * the instance is pooled and handed to another scope.
+ *
+ * @see addy.annotations.Scope
+ */
+public interface Recyclable {
+    void recycle();
+}
@@ -0,0 +1,235 @@
+package addy;
+
+import addy.context.ServiceContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dependency graph of a loaded service context, weighted by the time spent instantiating
+ * every service, with its critical path: the chain of dependencies that bounds the time it
+ * takes to instantiate every service, however many threads are used.
+ *
+ * The slack of a service is how much longer it could take without making the whole load take
+ * longer, services on the critical path have none.
+ *
+ * <pre>
+ * StartupSummaryReporter report = new StartupSummaryReporter();
+ * manager.setListener(report);
+ * manager.loadAndWait();
+ * ServiceGraph graph = new ServiceGraph(manager.getSrvCtx(), report.getServices());
+ * System.out.println(graph.getCriticalPath());
+ * </pre>
+ */
+public class ServiceGraph
+{
+    private final Map<String, List<String>> dependencies;
+    private final Map<String, Long> nanos;
+
+    // earliest point in time every service can be done, and the latest it must be done
+    private final Map<String, Long> finish;
+    private final Map<String, Long> latest;
+    private final List<String> criticalPath;
+    private final long total;
+
+    /**
+     * @param ctx loaded service context
+     * @param timings nanoseconds spent instantiating every service, eg. StartupSummaryReporter.getServices()
+     */
+    public ServiceGraph(final ServiceContext ctx, final Map<String, Long> timings) {
+        this.dependencies = ctx.getServiceDependencies();
+        this.nanos = new LinkedHashMap<>();
+        for (String name : this.dependencies.keySet()) {
+            this.nanos.put(name, timings.getOrDefault(name, 0L));
+        }
+
+        // services of a parent context are not part of the graph
+        for (List<String> dependencies : this.dependencies.values()) {
+            dependencies.retainAll(this.dependencies.keySet());
+        }
+
+        List<String> order = this.sort();
+
+        this.finish = new LinkedHashMap<>();
+        long total = 0;
+        String last = null;
+        for (String name : order) {
+            long start = 0;
+            for (String dependency : this.dependencies.get(name)) {
+                start = Math.max(start, this.finish.get(dependency));
+            }
+
+            long done = start + this.nanos.get(name);
+            this.finish.put(name, done);
+            if (last == null || done > total) {
+                total = done;
+                last = name;
+            }
+        }
+        this.total = total;
+
+        this.latest = new LinkedHashMap<>();
+        for (String name : order) {
+            this.latest.put(name, total);
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            String name = order.get(i);
+            long start = this.latest.get(name) - this.nanos.get(name);
+            for (String dependency : this.dependencies.get(name)) {
+                this.latest.put(dependency, Math.min(this.latest.get(dependency), start));
+            }
+        }
+
+        // walk back from the service finishing last, through the dependency finishing last
+        List<String> path = new ArrayList<>();
+        while (last != null) {
+            path.add(last);
+            String next = null;
+            for (String dependency : this.dependencies.get(last)) {
+                if (next == null || this.finish.get(dependency) > this.finish.get(next)) {
+                    next = dependency;
+                }
+            }
+            last = next;
+        }
+        Collections.reverse(path);
+        this.criticalPath = Collections.unmodifiableList(path);
+    }
+
+    /**
+     * @return every service after its dependencies
+     */
+    private List<String> sort() {
+        List<String> order = new ArrayList<>(this.dependencies.size());
+        Set<String> visited = new HashSet<>();
+        for (String name : this.dependencies.keySet()) {
+            this.visit(name, visited, order);
+        }
+
+        return order;
+    }
+
+    private void visit(final String name, final Set<String> visited, final List<String> order) {
+        if (!visited.add(name)) {
+            return;
+        }
+
+        for (String dependency : this.dependencies.get(name)) {
+            this.visit(dependency, visited, order);
+        }
+        order.add(name);
+    }
+
+    /**
+     * @return the chain of services that took the longest, dependencies first
+     */
+    public List<String> getCriticalPath() {
+        return this.criticalPath;
+    }
+
+    /**
+     * @return nanoseconds spent instantiating the services of the critical path
+     */
+    public long getCriticalPathNanos() {
+        return this.total;
+    }
+
+    /**
+     * @param name of a service
+     * @return nanoseconds the service could be delayed without delaying the critical path
+     */
+    public long getSlack(final String name) {
+        String key = name.toLowerCase();
+        if (!this.finish.containsKey(key)) {
+            throw new IllegalArgumentException("unknown service: " + name);
+        }
+
+        return this.latest.get(key) - this.finish.get(key);
+    }
+
+    /**
+     * @return the graph in the Graphviz DOT language, edges point from a dependency to its
+     * dependents and the critical path is drawn in red
+     */
+    public String toDot() {
+        Set<String> critical = new HashSet<>(this.criticalPath);
+        StringBuilder dot = new StringBuilder("digraph services {\n");
+        dot.append("  node [shape=box];\n");
+        for (Map.Entry<String, Long> node : this.nanos.entrySet()) {
+            String name = node.getKey();
+            dot.append(String.format("  %s [label=\"%s\\n%.3f ms, slack %.3f ms\"%s];%n",
+                    quote(name), name.replace("\"", "\\\""), millis(node.getValue()), millis(this.getSlack(name)),
+                    critical.contains(name) ? ", color=red, penwidth=2" : ""));
+        }
+        for (Map.Entry<String, List<String>> node : this.dependencies.entrySet()) {
+            for (String dependency : node.getValue()) {
+                boolean onPath = critical.contains(node.getKey()) && critical.contains(dependency);
+                dot.append("  ").append(quote(dependency)).append(" -> ").append(quote(node.getKey()))
+                        .append(onPath ? " [color=red, penwidth=2]" : "").append(";\n");
+            }
+        }
+
+        return dot.append("}\n").toString();
+    }
+
+    /**
+     * @return the graph as JSON, with the critical path and the timings in nanoseconds
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"criticalPathNanos\": ").append(this.total).append(",\n");
+        json.append("  \"criticalPath\": ").append(jsonArray(this.criticalPath)).append(",\n");
+        json.append("  \"services\": [");
+        String separator = "\n";
+        for (Map.Entry<String, List<String>> node : this.dependencies.entrySet()) {
+            String name = node.getKey();
+            json.append(separator)
+                    .append("    {\"name\": ").append(jsonString(name))
+                    .append(", \"nanos\": ").append(this.nanos.get(name))
+                    .append(", \"slackNanos\": ").append(this.getSlack(name))
+                    .append(", \"dependencies\": ").append(jsonArray(node.getValue()))
+                    .append("}");
+            separator = ",\n";
+        }
+
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    private static String quote(final String name) {
+        return "\"" + name.replace("\"", "\\\"") + "\"";
+    }
+
+    private static String jsonArray(final List<String> names) {
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < names.size(); i++) {
+            array.append(i == 0 ? "" : ", ").append(jsonString(names.get(i)));
+        }
+
+        return array.append("]").toString();
+    }
+
+    private static String jsonString(final String value) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+
+        return escaped.append("\"").toString();
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -1,22 +1,57 @@
 package addy;
 
+import addy.annotations.Scope;
+import addy.context.TypeIndex;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class ServiceHolder
 {
+    // services the current thread is calling the method or constructor of, innermost last
+    private static final ThreadLocal<List<ServiceHolder>> CONSTRUCTING = ThreadLocal.withInitial(ArrayList::new);
 
     private final String name;
     private final Object function;
-    private final List<String> dependencies;
     private final List<String> requiredDependencies;
     private final ServiceInvoker initializer;
     private final Object classInstance;
 
-    private Object instance;
+    private volatile Object instance;
+    private CompletableFuture<Object> initialized;
+    private boolean initializing;
+    private volatile Thread constructor;
+    private boolean lazy;
+    private Scope scope;
+    private Class<?> type;
+    private List<Class<?>> dependencyTypes;
+
+    // parameter index -> name of the services injected as a Supplier, resolved on first use
+    private Map<Integer, String> deferredDependencies;
+    private Function<String, Supplier<Object>> provider;
+
+    // parameter index -> T[] or List<T> parameter injected with every service of type T,
+    // and the number of services each one was resolved to
+    private Map<Integer, Type> multiBindings;
+    private Map<Integer, Integer> multiBindingSizes;
 
     /**
      * Used to initialize either a constructor or method.
@@ -33,12 +68,22 @@ public class ServiceHolder
     {
         this.name = formatServiceName(name);
         this.function = function;
-        this.dependencies = new ArrayList<>(parameters); // this will populate later on
-        this.requiredDependencies = new ArrayList<>(parameters);
+        this.requiredDependencies = new ArrayList<>(parameters.size());
+        for (final String parameter : parameters) {
+            this.requiredDependencies.add(formatServiceName(parameter));
+        }
         this.initializer = initializer;
         this.classInstance = classInstance;
 
         this.instance = null;
+        this.lazy = false;
+        this.scope = Scope.SINGLETON;
+        this.type = declaredType(function);
+        this.dependencyTypes = null;
+        this.deferredDependencies = Collections.emptyMap();
+        this.provider = null;
+        this.multiBindings = Collections.emptyMap();
+        this.multiBindingSizes = null;
     }
 
     /**
@@ -52,9 +97,16 @@ public class ServiceHolder
     {
         this.name = formatServiceName(name);
         this.instance = instance;
+        this.lazy = false;
+        this.scope = Scope.SINGLETON;
+        this.type = instance == null ? null : instance.getClass();
+        this.dependencyTypes = null;
+        this.deferredDependencies = Collections.emptyMap();
+        this.provider = null;
+        this.multiBindings = Collections.emptyMap();
+        this.multiBindingSizes = null;
 
         this.function = null;
-        this.dependencies = new ArrayList<>();
         this.requiredDependencies = new ArrayList<>();
         this.initializer = null;
         this.classInstance = null;
@@ -65,140 +117,453 @@ public class ServiceHolder
     }
 
     /**
-     * Given all objects added to the injector, we recursively go through
-     * dependencies and add them to our dependency list. We can then detect dependency
-     * cycling and find out which order components needs to be instantiated for for every
-     * dependency to not get a null param.
+     * @param function service method or constructor
+     * @return the type the function creates, primitives boxed, or null if unknown
+     */
+    private static Class<?> declaredType(final Object function) {
+        if (isAsync(function)) {
+            // the service is the value the future completes with
+            Type type = ((Method) function).getGenericReturnType();
+            if (type instanceof ParameterizedType) {
+                type = ((ParameterizedType) type).getActualTypeArguments()[0];
+            }
+            if (type instanceof ParameterizedType) {
+                type = ((ParameterizedType) type).getRawType();
+            }
+
+            return type instanceof Class && type != CompletionStage.class && type != CompletableFuture.class
+                    ? (Class<?>) type
+                    : Object.class;
+        } else if (function instanceof Method) {
+            return MethodType.methodType(((Method) function).getReturnType()).wrap().returnType();
+        } else if (function instanceof Constructor) {
+            return ((Constructor<?>) function).getDeclaringClass();
+        }
+
+        return null;
+    }
+
+    /**
+     * @param function service method or constructor
+     * @return true if the function returns a CompletionStage of the service
+     */
+    private static boolean isAsync(final Object function) {
+        return function instanceof Method && CompletionStage.class.isAssignableFrom(((Method) function).getReturnType());
+    }
+
+    /**
+     * Replace dependencies injected by type, @Inject without a name, with the name of the
+     * one service of that type. Must be called before the dependency tree is created.
      *
-     * @param components is a list of injectable components/services (initialized or not)
+     * @param types every service indexed by its declared type
      */
-    public void createDependencyTree(final List<ServiceHolder> components)
+    public void resolveDependencyTypes(final TypeIndex<ServiceHolder> types)
     {
-        if (this.instance != null) {
+        if (!this.multiBindings.isEmpty() && this.multiBindingSizes == null) {
+            this.resolveMultiBindings(types);
+        }
+        if (this.dependencyTypes == null) {
             return;
         }
 
-        this.populateDependencyTree(components, this.name);
+        for (int i = 0; i < this.requiredDependencies.size(); i++) {
+            final Class<?> dependencyType = this.dependencyTypes.get(i);
+            if (!this.requiredDependencies.get(i).isEmpty() || dependencyType == null) {
+                continue;
+            }
+
+            final List<ServiceHolder> candidates = types.get(dependencyType);
+            if (candidates.size() != 1) {
+                throw new InstantiationError("expected one service of type " + dependencyType.getName()
+                        + " for @Service " + this.name + ", found " + candidates);
+            }
+
+            final String dependency = candidates.get(0).getName();
+            this.requiredDependencies.set(i, dependency);
+        }
     }
 
     /**
-     * Supplement the root element to help detect circular dependency.
+     * Replace every T[] or List<T> parameter by the services of type T, ordered by name
+     * as the order methods are discovered in is unspecified. Scoped services, and this
+     * service itself, are left out.
      *
-     * @param components
-     * @param root
-     * @see ServiceHolder#createDependencyTree
+     * @param types every service indexed by its declared type
      */
-    private void populateDependencyTree(final List<ServiceHolder> components,
-                                        final String root)
+    private void resolveMultiBindings(final TypeIndex<ServiceHolder> types)
     {
-        for (ServiceHolder dependency : components) {
-            final String depName = dependency.getName();
+        final List<String> required = new ArrayList<>();
+        final List<Class<?>> requiredTypes = new ArrayList<>();
+        final int parameters = this.requiredDependencies.size() + this.deferredDependencies.size();
+        this.multiBindingSizes = new HashMap<>();
 
-            // don't evaluate itself
-            if (this.name.equals(formatServiceName(depName))) {
+        for (int i = 0, position = 0; i < parameters; i++) {
+            if (this.deferredDependencies.containsKey(i)) {
                 continue;
             }
 
-            // ignore if not a dependency
-            if (!this.dependsOnComponent(depName, false)) {
+            final Type multiBinding = this.multiBindings.get(i);
+            if (multiBinding == null) {
+                required.add(this.requiredDependencies.get(position));
+                requiredTypes.add(this.dependencyTypes == null ? null : this.dependencyTypes.get(position));
+                position++;
                 continue;
             }
+            position++;
 
-            // if this is a dependency and it requires the root component,
-            // its a circular dependency issue
-            if (!root.equals(this.name) && root.equals(depName)) {
-                throwDependencyCyclingError(root, this.name);
-            }
+            int size = 0;
+            for (final ServiceHolder candidate : byName(types.get(elementType(multiBinding)))) {
+                if (candidate == this || candidate.isScoped()) {
+                    continue;
+                }
 
-            // skip dependencies with no sub dependencies
-            if (dependency.nrOfDependencies() == 0) {
-                continue;
+                required.add(candidate.getName());
+                requiredTypes.add(null);
+                size++;
             }
+            this.multiBindingSizes.put(i, size);
+        }
 
-            // lay out the dependencies of the dependency
-            dependency.populateDependencyTree(components, root);
+        this.requiredDependencies.clear();
+        this.requiredDependencies.addAll(required);
+        this.dependencyTypes = requiredTypes;
+    }
 
-            List<String> required = dependency.getDependencies();
-            for (String want : required) {
-                boolean alreadyGotIt = false;
-                for (String got : this.dependencies) {
-                    if (want.equals(got)) {
-                        alreadyGotIt = true;
-                        break;
-                    }
-                }
+    /**
+     * @param holders
+     * @return the holders sorted by name
+     */
+    static List<ServiceHolder> byName(final List<ServiceHolder> holders) {
+        List<ServiceHolder> sorted = new ArrayList<>(holders);
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return sorted;
+    }
+
+    /**
+     * @param parameter T[] or List<T>
+     * @return T, or Object if unknown
+     */
+    static Class<?> elementType(final Type parameter) {
+        if (parameter instanceof Class && ((Class<?>) parameter).isArray()) {
+            return ((Class<?>) parameter).getComponentType();
+        }
 
-                if (!alreadyGotIt) {
-                    this.dependencies.add(want);
+        Type element = parameter instanceof ParameterizedType ? ((ParameterizedType) parameter).getActualTypeArguments()[0] : Object.class;
+        if (element instanceof ParameterizedType) {
+            element = ((ParameterizedType) element).getRawType();
+        }
+
+        return element instanceof Class ? (Class<?>) element : Object.class;
+    }
+
+    /**
+     * @param parameter T[] or List<T>
+     * @param services of type T
+     * @return a new array, or an unmodifiable list, of the services
+     */
+    static Object collect(final Type parameter, final Object[] services) {
+        if (parameter instanceof Class && ((Class<?>) parameter).isArray()) {
+            Object array = Array.newInstance(((Class<?>) parameter).getComponentType(), services.length);
+            System.arraycopy(services, 0, array, 0, services.length);
+            return array;
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(services.clone()));
+    }
+
+    /**
+     * Every service this service depends on, directly or through its dependencies, found on
+     * demand as the injector only keeps the direct dependencies.
+     *
+     * @param registry holds every injectable component/service (initialized or not)
+     * @return names of the dependencies, direct ones first
+     * @see DependencyPlanner#reach(java.util.BitSet)
+     */
+    public Set<String> getDependencies(final ServiceRegistry registry)
+    {
+        Set<String> tree = new LinkedHashSet<>(this.requiredDependencies);
+        List<String> pending = new ArrayList<>(this.requiredDependencies);
+        while (!pending.isEmpty()) {
+            final ServiceHolder dependency = registry.get(pending.remove(pending.size() - 1));
+            if (dependency == null) {
+                continue;
+            }
+
+            for (final String name : dependency.requiredDependencies) {
+                if (tree.add(name)) {
+                    pending.add(name);
                 }
             }
         }
+
+        return tree;
     }
 
     /**
      * Initialize component and every dependency recursively.
+     * Safe to call from several threads, dependencies are always locked after their
+     * dependents so the locks follow the (acyclic) dependency graph.
      */
-    public void initialize(final List<ServiceHolder> components)
+    public void initialize(final ServiceRegistry registry)
     {
-        if (this.instance != null) {
-            return;
+        this.initialize(registry, InjectorListener.NONE);
+    }
+
+    /**
+     * Initialize component and every dependency recursively, and report the time spent
+     * in every service method or constructor to the listener. Blocks until services
+     * returning a CompletionStage have completed.
+     *
+     * @param registry
+     * @param listener
+     */
+    public void initialize(final ServiceRegistry registry, final InjectorListener listener)
+    {
+        await(this.initializeAsync(registry, listener));
+    }
+
+    /**
+     * Initialize component once every dependency has completed, without waiting for them.
+     * A service method returning a CompletionStage is installed with the value it completes
+     * with, its dependents are started by the thread completing it.
+     *
+     * @param registry
+     * @param listener
+     * @return completes with the instance, or null if the service could not be created
+     */
+    public CompletableFuture<Object> initializeAsync(final ServiceRegistry registry, final InjectorListener listener)
+    {
+        final List<CompletableFuture<Object>> parameters;
+        final CompletableFuture<Object> initialized;
+        synchronized (this) {
+            if (this.initialized != null) {
+                return this.initialized;
+            }
+            if (this.instance != null) {
+                this.initialized = CompletableFuture.completedFuture(this.instance);
+                return this.initialized;
+            }
+
+            parameters = this.initializeDependencies(registry, listener);
+            initialized = new CompletableFuture<>();
+            this.initialized = initialized;
         }
 
-        // check if component uses itself as a param
-        for (final String dependency : this.dependencies) {
-            if (this.name.equals(dependency.toLowerCase())) {
+        // invoked outside the lock, a Supplier of this service called meanwhile finds it in progress
+        CompletableFuture.allOf(parameters.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(ignored -> this.invoke(parameters, listener))
+                .whenComplete((instance, e) -> {
+                    if (e != null) {
+                        initialized.completeExceptionally(e);
+                    } else {
+                        initialized.complete(instance);
+                    }
+                });
+        return initialized;
+    }
+
+    /**
+     * @return futures of the required dependencies, in parameter order
+     */
+    private List<CompletableFuture<Object>> initializeDependencies(final ServiceRegistry registry, final InjectorListener listener)
+    {
+        // check if component uses itself as a param, longer cycles are found by the DependencyPlanner
+        // or, when it was skipped, by meeting this service again while its dependencies are initialized
+        if (this.initializing) {
+            throwDependencyCyclingError(this.name, this.name);
+        }
+        for (final String dependency : this.requiredDependencies) {
+            if (this.name.equals(dependency)) {
                 throwDependencyCyclingError(this.name, this.name);
             }
         }
 
-        // find and initialize every construction dependency
-        // (dependencies required later, "insert DI", is ignored)
-        List<ServiceHolder> parameters = new ArrayList<>();
-        for (final String dependency : this.dependencies) {
-            for (final ServiceHolder component : components) {
-                if (!dependency.toLowerCase().equals(component.getName().toLowerCase())) {
-                    continue;
-                }
+        // initialize every dependency, they initialize their own dependencies in turn
+        final List<CompletableFuture<Object>> parameters = new ArrayList<>(this.requiredDependencies.size());
+        this.initializing = true;
+        try {
+            for (final String dependency : this.requiredDependencies) {
+                final ServiceHolder component = registry.get(dependency);
+                parameters.add(component == null
+                        ? CompletableFuture.completedFuture(null)
+                        : component.initializeAsync(registry, listener));
+            }
+        } finally {
+            this.initializing = false;
+        }
 
-                component.initialize(components);
-                final Object depInstance = component.getInstance();
-                if (depInstance != null && this.dependsOnComponent(component.getName(), true)) {
-                    parameters.add(component);
-                }
-                break;
+        return parameters;
+    }
+
+    /**
+     * Call the service method or constructor, the dependencies must have completed.
+     *
+     * @param parameters completed dependencies in parameter order
+     * @param listener
+     * @return completes with the instance
+     */
+    private CompletionStage<Object> invoke(final List<CompletableFuture<Object>> parameters, final InjectorListener listener)
+    {
+        // convert GameComponent to Object instance
+        // (dependencies required later, "insert DI", is ignored)
+        final Object[] instances = new Object[parameters.size()];
+        StringBuilder have = new StringBuilder();
+        boolean missing = false;
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = parameters.get(i).join();
+            if (instances[i] == null) {
+                missing = true;
+            } else {
+                have.append(this.requiredDependencies.get(i)).append(",");
             }
         }
 
         // check if any dependencies are missing
-        if (this.requiredDependencies.size() != parameters.size()) {
-            String err = "missing dependencies for @GameComponent: " + this.toStringWithDependencies();
+        if (missing) {
+            throw new InstantiationError("missing dependencies for @GameComponent: " + this.toStringWithDependencies() + ", have: " + have);
+        }
 
-            StringBuilder have = new StringBuilder();
-            for (Object dep : parameters) {
-                have.append(dep.toString()).append(",");
+        // everything is alright, instantiate component
+        final long start = listener == InjectorListener.NONE ? 0 : System.nanoTime();
+        final List<ServiceHolder> constructing = CONSTRUCTING.get();
+        Object result;
+        constructing.add(this);
+        this.constructor = Thread.currentThread();
+        try {
+            result = this.initializer.initiate(this.function, this.arguments(instances), this.classInstance);
+        } catch (Exception e) {
+            if (e.getCause() instanceof InstantiationError) {
+                // eg. a dependency cycle through a Supplier, found while this service was created
+                throw (InstantiationError) e.getCause();
             }
 
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(null);
+        } finally {
+            this.constructor = null;
+            constructing.remove(constructing.size() - 1);
+        }
 
-            err += ", have: " + have;
+        if (result instanceof CompletionStage && (this.function == null || isAsync(this.function))) {
+            @SuppressWarnings("unchecked")
+            CompletionStage<Object> stage = (CompletionStage<Object>) result;
+            return stage.handle((value, e) -> {
+                if (e != null) {
+                    e.printStackTrace();
+                    return null;
+                }
 
-            throw new InstantiationError(err);
+                this.instantiated(value, start, listener);
+                return value;
+            });
         }
 
-        // convert GameComponent to Object instance
-        List<Object> instances = new ArrayList<>();
-        for (ServiceHolder holder : parameters) {
-            instances.add(holder.getInstance());
+        this.instantiated(result, start, listener);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * @param required instances of the required dependencies, in parameter order
+     * @return every parameter, with a Supplier in place of each deferred dependency
+     */
+    private Object[] arguments(final Object[] required) {
+        if (this.deferredDependencies.isEmpty() && this.multiBindings.isEmpty()) {
+            return required;
         }
 
-        // everything is alright, instantiate component
+        List<Object> arguments = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; next < required.length || this.deferredDependencies.containsKey(i) || this.multiBindings.containsKey(i); i++) {
+            String deferred = this.deferredDependencies.get(i);
+            Type multiBinding = this.multiBindings.get(i);
+            if (deferred != null) {
+                arguments.add(this.provider.apply(deferred));
+            } else if (multiBinding != null) {
+                int size = this.multiBindingSizes.get(i);
+                arguments.add(collect(multiBinding, Arrays.copyOfRange(required, next, next + size)));
+                next += size;
+            } else {
+                arguments.add(required[next++]);
+            }
+        }
+
+        return arguments.toArray();
+    }
+
+    private void instantiated(final Object instance, final long start, final InjectorListener listener) {
+        this.instance = instance;
+        if (listener != InjectorListener.NONE) {
+            listener.serviceInstantiated(this.name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return thread calling the service method or constructor right now, or null
+     */
+    Thread getConstructor() {
+        return this.constructor;
+    }
+
+    /**
+     * @return services the current thread is calling the method or constructor of, innermost last
+     */
+    static List<ServiceHolder> constructing() {
+        return Collections.unmodifiableList(CONSTRUCTING.get());
+    }
+
+    /**
+     * Wait for a service, and rethrow what failed it on the calling thread.
+     *
+     * @param future of initializeAsync
+     * @return the instance
+     */
+    static Object await(final CompletableFuture<Object> future) {
         try {
-            this.instance = this.initializer.initiate(this.function, instances.toArray(), this.classInstance);
-        } catch (Exception e) {
-            e.printStackTrace();
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
         }
     }
 
 
+    /**
+     * Create a new instance for a scoped service, without keeping it.
+     *
+     * @param dependencies instances of the required dependencies, in parameter order
+     * @param listener
+     * @return the new instance
+     */
+    public Object newInstance(final Object[] dependencies, final InjectorListener listener)
+    {
+        Object instance;
+        try {
+            final long start = listener == InjectorListener.NONE ? 0 : System.nanoTime();
+            instance = this.initializer.initiate(this.function, this.arguments(dependencies), this.classInstance);
+            if (instance instanceof CompletionStage && (this.function == null || isAsync(this.function))) {
+                instance = ((CompletionStage<?>) instance).toCompletableFuture().join();
+            }
+            if (listener != InjectorListener.NONE) {
+                listener.serviceInstantiated(this.name, System.nanoTime() - start);
+            }
+        } catch (Exception e) {
+            InstantiationError err = new InstantiationError("unable to instantiate scoped service: " + this.name);
+            err.initCause(e);
+            throw err;
+        }
+
+        if (instance == null) {
+            throw new InstantiationError("instance for scoped service was null: " + this.name);
+        }
+
+        return instance;
+    }
+
     private void throwDependencyCyclingError(String a, String b)
     {
         throw new InstantiationError("both methods require each other (cycling dependency): " + a + ", " + b);
@@ -208,26 +573,18 @@ public class ServiceHolder
      * Check if a given component is a dependency of this.
      *
      * @param name of the potential dependency
+     * @param checkOnlyMains true to only check the direct dependencies
+     * @param registry to find the dependencies of the dependencies through
      * @return
      */
-    public boolean dependsOnComponent(final String name, boolean checkOnlyMains)
+    public boolean dependsOnComponent(final String name, boolean checkOnlyMains, final ServiceRegistry registry)
     {
-        boolean dependent = false;
-        List<String> dependencies;
+        final String formatted = formatServiceName(name);
         if (checkOnlyMains) {
-            dependencies = this.requiredDependencies;
-        } else {
-            dependencies = this.dependencies;
-        }
-
-        for (final String dependency : dependencies) {
-            if (formatServiceName(name).equals(formatServiceName(dependency))) {
-                dependent = true;
-                break;
-            }
+            return this.requiredDependencies.contains(formatted);
         }
 
-        return dependent;
+        return this.getDependencies(registry).contains(formatted);
     }
 
     // ########################################################################################
@@ -239,18 +596,115 @@ public class ServiceHolder
         return name;
     }
 
-    public List<String> getDependencies() {
-        return dependencies;
+    /**
+     * @return the service method or constructor, or null for instances and generated services
+     */
+    public Object getFunction() {
+        return function;
+    }
+
+    public List<String> getRequiredDependencies() {
+        return requiredDependencies;
     }
 
     public int nrOfDependencies() {
-        return dependencies.size();
+        return requiredDependencies.size();
     }
 
     public Object getInstance() {
         return instance;
     }
 
+    /**
+     * @return true if the service should only be instantiated on first use
+     * @see addy.annotations.Lazy
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public void setLazy(final boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * @return SINGLETON, unless a new instance is made per thread or request
+     * @see addy.annotations.Scope
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(final Scope scope) {
+        this.scope = scope;
+    }
+
+    public boolean isScoped() {
+        return scope != Scope.SINGLETON;
+    }
+
+    /**
+     * @return declared type of the service, or null if unknown
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    public void setType(final Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * @param dependencyTypes parameter type of every required dependency, in the same order
+     * @see #resolveDependencyTypes(TypeIndex)
+     */
+    public void setDependencyTypes(final List<Class<?>> dependencyTypes) {
+        this.dependencyTypes = dependencyTypes;
+    }
+
+    /**
+     * Inject the given parameters as a Supplier, they are left out of the required dependencies
+     * so they neither order nor promote the services they name.
+     *
+     * @param deferredDependencies parameter index mapped to the name of the service
+     * @param provider creates the Supplier of a service by name
+     */
+    public void setDeferredDependencies(final Map<Integer, String> deferredDependencies,
+                                        final Function<String, Supplier<Object>> provider)
+    {
+        this.deferredDependencies = deferredDependencies;
+        this.provider = provider;
+    }
+
+    /**
+     * Inject every service of type T into the given T[] or List<T> parameters, they are
+     * resolved together with the dependencies injected by type.
+     *
+     * @param multiBindings parameter index mapped to the generic parameter type
+     */
+    public void setMultiBindings(final Map<Integer, Type> multiBindings) {
+        this.multiBindings = multiBindings;
+        this.multiBindingSizes = null;
+    }
+
+    public boolean hasMultiBindings() {
+        return !multiBindings.isEmpty();
+    }
+
+    /**
+     * @return parameter index mapped to the name of every service injected as a Supplier
+     */
+    public Map<Integer, String> getDeferredDependencies() {
+        return deferredDependencies;
+    }
+
+    /**
+     * @return parameter type of every required dependency, or null if unknown
+     */
+    public List<Class<?>> getDependencyTypes() {
+        return dependencyTypes;
+    }
+
 
     @Override
     public String toString() {
@@ -268,10 +722,10 @@ public class ServiceHolder
         return content.toString();
     }
 
-    public String toStringWithAllDependencies()
+    public String toStringWithAllDependencies(final ServiceRegistry registry)
     {
         StringBuilder content = new StringBuilder(this.name + "{");
-        for (String dependency : this.dependencies) {
+        for (String dependency : this.getDependencies(registry)) {
             content.append(dependency).append(",");
         }
         content.append("}");
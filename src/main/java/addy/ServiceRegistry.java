@@ -0,0 +1,71 @@
+package addy;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Name keyed index over every ServiceHolder registered in an Injector.
+ *
+ * Holders are stored by their already normalized name, so a lookup is a single
+ * hash probe without any string conversion. The first holder registered under
+ * a name wins, every later one is counted as a duplicate.
+ */
+public class ServiceRegistry
+{
+    private final Map<String, ServiceHolder> holders;
+    private final Map<String, Integer> duplicates;
+
+    public ServiceRegistry() {
+        this.holders = new HashMap<>();
+        this.duplicates = new LinkedHashMap<>();
+    }
+
+    /**
+     * Register a holder under its normalized name.
+     *
+     * @param holder
+     */
+    public void register(final ServiceHolder holder) {
+        final String name = holder.getName();
+        if (this.holders.putIfAbsent(name, holder) == null) {
+            return;
+        }
+
+        // first duplicate means two instances share the name
+        this.duplicates.merge(name, 2, (a, b) -> a + 1);
+    }
+
+    /**
+     * @param name normalized service name
+     * @return holder or null if no service with the given name is registered
+     */
+    public ServiceHolder get(final String name) {
+        return this.holders.get(name);
+    }
+
+    public boolean contains(final String name) {
+        return this.holders.containsKey(name);
+    }
+
+    public int size() {
+        return this.holders.size();
+    }
+
+    public Collection<ServiceHolder> getHolders() {
+        return this.holders.values();
+    }
+
+    /**
+     * @return names registered more than once, mapped to the number of registrations
+     */
+    public Map<String, Integer> getDuplicates() {
+        return this.duplicates;
+    }
+
+    public void clear() {
+        this.holders.clear();
+        this.duplicates.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package addy;
+
+/**
+ * Implemented by the wiring classes addy-processor generates for every @Configuration class.
+ *
+ * When a wiring class is found next to a configuration, the Injector registers the services
+ * through it in stead of discovering them through reflection, and the services are created
+ * with plain constructor and method calls. The dependency graph of generated wirings has
+ * already been validated at compile time.
+ */
+public interface ServiceWiring
+{
+    String CLASS_SUFFIX = "_AddyWiring";
+
+    /**
+     * @return a new instance of the configuration class
+     */
+    Object newConfiguration();
+
+    /**
+     * Register every @Service method of the configuration.
+     *
+     * @param injector
+     * @param configuration instance of the configuration class
+     */
+    void registerServices(final Injector injector, final Object configuration);
+
+    /**
+     * Register every @Service class listed by the @ServiceLinker of the configuration.
+     *
+     * @param injector
+     */
+    void registerLinkedServices(final Injector injector);
+
+    /**
+     * The generated class is placed in the package of the configuration, nested
+     * configurations are named after their binary name with '$' replaced by '_'.
+     *
+     * @param config binary class name of the configuration, eg. Class.getName()
+     * @return binary class name of the generated wiring
+     */
+    static String getWiringClassName(final String config) {
+        final int pkg = config.lastIndexOf('.');
+        return config.substring(0, pkg + 1) + config.substring(pkg + 1).replace('$', '_') + CLASS_SUFFIX;
+    }
+}
@@ -0,0 +1,186 @@
+package addy;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the startup timings and summarizes where the time went: every phase, and the
+ * slowest services, @DepWire methods and warm-ups.
+ *
+ * <pre>
+ * StartupSummaryReporter report = new StartupSummaryReporter();
+ * manager.setListener(report);
+ * manager.loadAndWait();
+ * report.print(System.out);
+ * </pre>
+ */
+public class StartupSummaryReporter
+        implements
+        InjectorListener
+{
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final Map<LoadPhase, Long> phases;
+    private final Map<String, Long> services;
+    private final Map<String, Long> depWires;
+    private final Map<String, Long> warmUps;
+    private final Map<String, Throwable> failedWarmUps;
+    private final List<String> pruned;
+    private final int limit;
+
+    public StartupSummaryReporter() {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * @param limit max number of services and @DepWire methods to list in the summary
+     */
+    public StartupSummaryReporter(final int limit) {
+        this.phases = new EnumMap<>(LoadPhase.class);
+        this.services = new LinkedHashMap<>();
+        this.depWires = new LinkedHashMap<>();
+        this.warmUps = new LinkedHashMap<>();
+        this.failedWarmUps = new LinkedHashMap<>();
+        this.pruned = new ArrayList<>();
+        this.limit = limit;
+    }
+
+    @Override
+    public synchronized void phaseFinished(final LoadPhase phase, final long nanos) {
+        this.phases.merge(phase, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void serviceInstantiated(final String name, final long nanos) {
+        this.services.merge(name, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void depWireInvoked(final Object instance, final Method method, final long nanos) {
+        String name = instance.getClass().getName() + "#" + method.getName();
+        this.depWires.merge(name, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void serviceWarmedUp(final String name, final long nanos, final int iterations) {
+        this.warmUps.merge(name, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void warmUpFailed(final String name, final Method method, final Throwable cause) {
+        this.failedWarmUps.put(name + "#" + method.getName(), cause);
+    }
+
+    @Override
+    public synchronized void servicesPruned(final List<String> names) {
+        this.pruned.addAll(names);
+    }
+
+    public synchronized Map<LoadPhase, Long> getPhases() {
+        return new EnumMap<>(this.phases);
+    }
+
+    /**
+     * @return service names mapped to nanoseconds spent instantiating them, in instantiation order
+     */
+    public synchronized Map<String, Long> getServices() {
+        return new LinkedHashMap<>(this.services);
+    }
+
+    public synchronized Map<String, Long> getDepWires() {
+        return new LinkedHashMap<>(this.depWires);
+    }
+
+    /**
+     * @return service names mapped to nanoseconds spent in their @WarmUp methods
+     */
+    public synchronized Map<String, Long> getWarmUps() {
+        return new LinkedHashMap<>(this.warmUps);
+    }
+
+    /**
+     * @return service name and @WarmUp method, eg. "parser#warmUp", mapped to what the method threw
+     */
+    public synchronized Map<String, Throwable> getFailedWarmUps() {
+        return new LinkedHashMap<>(this.failedWarmUps);
+    }
+
+    /**
+     * @return names of the services no root depends on, which were never instantiated
+     */
+    public synchronized List<String> getPruned() {
+        return new ArrayList<>(this.pruned);
+    }
+
+    /**
+     * @return total nanoseconds spent in every phase
+     */
+    public synchronized long getTotal() {
+        long total = 0;
+        for (long nanos : this.phases.values()) {
+            total += nanos;
+        }
+
+        return total;
+    }
+
+    public void print(final PrintStream out) {
+        out.print(this.toString());
+        out.flush();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder summary = new StringBuilder("Startup summary\n");
+        long total = this.getTotal();
+        for (Map.Entry<LoadPhase, Long> phase : this.phases.entrySet()) {
+            summary.append(String.format("  %-36s %10.3f ms %5.1f%%%n",
+                    phase.getKey().name().toLowerCase(),
+                    millis(phase.getValue()),
+                    total == 0 ? 0.0 : 100.0 * phase.getValue() / total));
+        }
+        summary.append(String.format("  %-36s %10.3f ms%n", "total", millis(total)));
+
+        this.appendSlowest(summary, "slowest services", this.services);
+        this.appendSlowest(summary, "slowest @DepWire methods", this.depWires);
+        this.appendSlowest(summary, "slowest warm-ups", this.warmUps);
+        if (!this.failedWarmUps.isEmpty()) {
+            summary.append("failed warm-ups (").append(this.failedWarmUps.size()).append(" total)\n");
+            for (Map.Entry<String, Throwable> failure : this.failedWarmUps.entrySet()) {
+                summary.append(String.format("  %-36s %s%n", failure.getKey(), failure.getValue()));
+            }
+        }
+        if (!this.pruned.isEmpty()) {
+            summary.append("pruned services (").append(this.pruned.size()).append(" total)\n");
+            for (String name : this.pruned) {
+                summary.append("  ").append(name).append("\n");
+            }
+        }
+
+        return summary.toString();
+    }
+
+    private void appendSlowest(final StringBuilder summary, final String title, final Map<String, Long> timings) {
+        if (timings.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<String, Long>> slowest = new ArrayList<>(timings.entrySet());
+        slowest.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        summary.append(title).append(" (").append(timings.size()).append(" total)\n");
+        for (Map.Entry<String, Long> timing : slowest.subList(0, Math.min(this.limit, slowest.size()))) {
+            summary.append(String.format("  %-36s %10.3f ms%n", timing.getKey(), millis(timing.getValue())));
+        }
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
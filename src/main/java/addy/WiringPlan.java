@@ -0,0 +1,327 @@
+package addy;
+
+import addy.annotations.Scope;
+import addy.annotations.ServiceLinker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Persists the services of an Injector after discovery, dependency analysis and sorting,
+ * such that the next start can skip all three.
+ *
+ * The plan holds every service in instantiation order, with the signature of its method or
+ * constructor, its declared type, and its dependencies as indexes into the plan. It is keyed by a hash of the
+ * bytecode of the configuration classes and their linked services, a plan with another hash
+ * is ignored and replaced.
+ *
+ * Services registered as instances are only referenced by name, they must be registered
+ * again before the plan is read.
+ */
+public class WiringPlan
+{
+    private static final int MAGIC = 0x41444459; // ADDY
+    private static final int VERSION = 3;
+
+    private static final byte INSTANCE = 0;
+    private static final byte METHOD = 1;
+    private static final byte CONSTRUCTOR = 2;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    static {
+        for (Class<?> primitive : Arrays.asList(boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class)) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private WiringPlan() {}
+
+    /**
+     * @param configs configuration classes, in load order
+     * @return hex encoded SHA-256 of the bytecode, or null if the bytecode of a class can't be read
+     */
+    public static String hash(final List<Class<?>> configs) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        for (Class<?> config : configs) {
+            List<Class<?>> classes = new ArrayList<>();
+            classes.add(config);
+            ServiceLinker linker = config.getAnnotation(ServiceLinker.class);
+            if (linker != null) {
+                classes.addAll(Arrays.asList(linker.value()));
+            }
+
+            for (Class<?> type : classes) {
+                if (!update(digest, type)) {
+                    return null;
+                }
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    private static boolean update(final MessageDigest digest, final Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null) {
+            return false;
+        }
+
+        digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = loader.getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            if (in == null) {
+                return false;
+            }
+
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Write the plan for services that have been sorted by their dependencies.
+     *
+     * @param file written through a temporary file next to it, and replaced atomically
+     * @param hash of the configuration classes
+     * @param components sorted services, with their dependency trees
+     * @return false if some service can't be planned, eg. it was generated or has unknown dependencies
+     * @throws IOException
+     */
+    public static boolean write(final Path file,
+                                final String hash,
+                                final List<ServiceHolder> components)
+            throws IOException
+    {
+        Map<String, Integer> slots = new HashMap<>();
+        for (int slot = 0; slot < components.size(); slot++) {
+            slots.put(components.get(slot).getName(), slot);
+        }
+        for (ServiceHolder component : components) {
+            if (component.getFunction() == null && component.getInstance() == null) {
+                return false;
+            }
+            if (!component.getDeferredDependencies().isEmpty() || component.hasMultiBindings()) {
+                // parameters injected as a Supplier, or with every service of a type, are not part of the plan
+                return false;
+            }
+            if (!slots.keySet().containsAll(component.getRequiredDependencies())) {
+                return false;
+            }
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(hash);
+
+            out.writeInt(components.size());
+            for (ServiceHolder component : components) {
+                out.writeUTF(component.getName());
+            }
+
+            for (ServiceHolder component : components) {
+                Object function = component.getFunction();
+                if (function instanceof Method) {
+                    Method method = (Method) function;
+                    out.writeByte(METHOD);
+                    out.writeUTF(method.getDeclaringClass().getName());
+                    out.writeUTF(method.getName());
+                    writeTypes(out, method.getParameterTypes());
+                } else if (function instanceof Constructor) {
+                    Constructor<?> constructor = (Constructor<?>) function;
+                    out.writeByte(CONSTRUCTOR);
+                    out.writeUTF(constructor.getDeclaringClass().getName());
+                    writeTypes(out, constructor.getParameterTypes());
+                } else {
+                    out.writeByte(INSTANCE);
+                }
+
+                // the declared type, such that services are found by type without analysing them again
+                out.writeUTF(component.getType() == null ? "" : component.getType().getName());
+                out.writeBoolean(component.isLazy());
+                out.writeByte(component.getScope().ordinal());
+                writeSlots(out, component.getRequiredDependencies(), slots);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Read the services of a plan, in instantiation order.
+     *
+     * @param file
+     * @param hash of the configuration classes, the plan is ignored if it was written for another hash
+     * @param configs configuration classes, to find the declaring classes of service methods
+     * @param configurations creates the configuration instance a service method is invoked on
+     * @param instances services registered as instances, by name
+     * @param methodInvoker
+     * @param constructorInvoker
+     * @return the services with their dependency trees, or null if there is no plan for the hash
+     * @throws IOException if the plan can't be read
+     * @throws ReflectiveOperationException if a planned method or constructor no longer exists
+     */
+    public static List<ServiceHolder> read(final Path file,
+                                           final String hash,
+                                           final List<Class<?>> configs,
+                                           final Function<Class<?>, Object> configurations,
+                                           final Map<String, ServiceHolder> instances,
+                                           final ServiceInvoker methodInvoker,
+                                           final ServiceInvoker constructorInvoker)
+            throws IOException, ReflectiveOperationException
+    {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(hash)) {
+                return null;
+            }
+
+            String[] names = new String[in.readInt()];
+            for (int slot = 0; slot < names.length; slot++) {
+                names[slot] = in.readUTF();
+            }
+
+            Map<String, Class<?>> classes = new HashMap<>();
+            for (Class<?> config : configs) {
+                classes.put(config.getName(), config);
+            }
+            Map<Class<?>, Object> configInstances = new HashMap<>();
+
+            List<ServiceHolder> components = new ArrayList<>(names.length);
+            for (String name : names) {
+                byte kind = in.readByte();
+                ServiceHolder holder;
+                if (kind == METHOD) {
+                    Class<?> config = classes.get(in.readUTF());
+                    String method = in.readUTF();
+                    Class<?>[] types = readTypes(in, config.getClassLoader());
+                    Object instance = configInstances.computeIfAbsent(config, configurations);
+                    if (instance == null) {
+                        return null;
+                    }
+
+                    holder = new ServiceHolder(name, config.getDeclaredMethod(method, types), new ArrayList<>(), methodInvoker, instance);
+                } else if (kind == CONSTRUCTOR) {
+                    ClassLoader loader = loader(configs);
+                    Class<?> type = Class.forName(in.readUTF(), false, loader);
+                    holder = new ServiceHolder(name, type.getConstructor(readTypes(in, loader)), new ArrayList<>(), constructorInvoker, null);
+                } else {
+                    holder = instances.get(name);
+                    if (holder == null) {
+                        return null;
+                    }
+                }
+
+                String type = in.readUTF();
+                holder.setType(type.isEmpty() ? null : readType(type, loader(configs)));
+                holder.setLazy(in.readBoolean());
+                holder.setScope(Scope.values()[in.readByte()]);
+                holder.getRequiredDependencies().clear();
+                holder.getRequiredDependencies().addAll(readSlots(in, names));
+                components.add(holder);
+            }
+
+            return components;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static ClassLoader loader(final List<Class<?>> configs) {
+        return configs.isEmpty() ? WiringPlan.class.getClassLoader() : configs.get(0).getClassLoader();
+    }
+
+    private static Class<?> readType(final String name, final ClassLoader loader) throws ClassNotFoundException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, loader);
+    }
+
+    private static void writeTypes(final DataOutputStream out, final Class<?>[] types) throws IOException {
+        out.writeInt(types.length);
+        for (Class<?> type : types) {
+            out.writeUTF(type.getName());
+        }
+    }
+
+    private static Class<?>[] readTypes(final DataInputStream in, final ClassLoader loader)
+            throws IOException, ClassNotFoundException
+    {
+        Class<?>[] types = new Class<?>[in.readInt()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = readType(in.readUTF(), loader);
+        }
+
+        return types;
+    }
+
+    private static void writeSlots(final DataOutputStream out, final List<String> names, final Map<String, Integer> slots)
+            throws IOException
+    {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeInt(slots.get(name));
+        }
+    }
+
+    private static List<String> readSlots(final DataInputStream in, final String[] names) throws IOException {
+        int size = in.readInt();
+        List<String> dependencies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependencies.add(names[in.readInt()]);
+        }
+
+        return dependencies;
+    }
+}
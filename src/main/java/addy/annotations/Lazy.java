@@ -0,0 +1,18 @@
+package addy.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a @Service method, or a @Service class listed in a @ServiceLinker, to not be
+ * instantiated while loading. The service, and any of its dependencies, is instantiated
+ * on the first lookup through the ServiceContext or when it is first injected.
+ *
+ * A lazy service that an eager service depends on is instantiated while loading.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Lazy {
+}
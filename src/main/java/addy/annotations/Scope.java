@@ -0,0 +1,30 @@
+package addy.annotations;
+
+/**
+ * How long an instance of a @Service lives, from the widest to the narrowest scope.
+ * A service may only depend on services of the same or a wider scope.
+ *
+ * Scoped services are instantiated on lookup, once per scope, and their @DepWire methods
+ * are not invoked. When a scope is exited its instances are recycled into a bounded pool
+ * and handed out again by a later scope.
+ *
+ * @see addy.context.ServiceScope
+ * @see addy.Recyclable
+ */
+public enum Scope {
+    /**
+     * One instance for the whole application, the default.
+     */
+    SINGLETON,
+
+    /**
+     * One instance per thread, until ServiceContext.exitThreadScope is called on that thread.
+     */
+    THREAD,
+
+    /**
+     * One instance per request, delimited by ServiceContext.enterRequestScope and closing
+     * the returned scope.
+     */
+    REQUEST
+}
@@ -10,4 +10,5 @@ import java.lang.annotation.Target;
 public @interface Service {
     String name() default "";
     String value() default "";
+    Scope scope() default Scope.SINGLETON;
 }
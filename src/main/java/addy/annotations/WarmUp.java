@@ -0,0 +1,22 @@
+package addy.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method without parameters of a service, to be called over and over once every
+ * service is wired, before loading finishes. Exercising the hot paths of a service lets the
+ * JIT compile them before the first real request hits them.
+ *
+ * The method is called until it has been called the given number of iterations, or until
+ * the given number of milliseconds have passed, whichever comes first. Services are warmed
+ * up in parallel, the warm-up methods of one service one after the other.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WarmUp {
+    int iterations() default 10000;
+    long millis() default 1000;
+}
@@ -0,0 +1,145 @@
+package addy.context;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps every annotation found on the installed services to the slots of those services,
+ * for each of the places an annotation can be put: class, constructor, method and field.
+ *
+ * The annotations of a class are only reflected once, and shared by every table. Lazy
+ * services can't be indexed before they are instantiated, so they are checked per query.
+ */
+final class AnnotationIndex
+{
+    static final int CLASS = 0;
+    static final int CONSTRUCTOR = 1;
+    static final int METHOD = 2;
+    static final int MEMBER = 3;
+    static final int ANY = 4;
+
+    private static final ClassValue<List<Set<Class<?>>>> ANNOTATIONS = new ClassValue<List<Set<Class<?>>>>() {
+        @Override
+        protected List<Set<Class<?>>> computeValue(final Class<?> type) {
+            List<Set<Class<?>>> levels = new ArrayList<>(ANY + 1);
+            levels.add(annotationTypes(type));
+            levels.add(annotationTypes(type.getDeclaredConstructors()));
+            levels.add(annotationTypes(type.getDeclaredMethods()));
+            levels.add(annotationTypes(type.getDeclaredFields()));
+
+            Set<Class<?>> any = new HashSet<>();
+            for (Set<Class<?>> level : levels) {
+                any.addAll(level);
+            }
+            levels.add(any);
+
+            return Collections.unmodifiableList(levels);
+        }
+    };
+
+    private final ServiceTable table;
+    private final List<Map<Class<?>, BitSet>> slots;
+    private final int[] lazySlots;
+
+    AnnotationIndex(final ServiceTable table) {
+        this.table = table;
+        this.slots = new ArrayList<>(ANY + 1);
+        for (int level = 0; level <= ANY; level++) {
+            this.slots.add(new HashMap<>());
+        }
+
+        int lazy = 0;
+        int[] lazySlots = new int[table.size()];
+        for (int slot = 0; slot < table.size(); slot++) {
+            Object service = table.service(slot);
+            if (service instanceof LazyService) {
+                lazySlots[lazy++] = slot;
+                continue;
+            }
+
+            List<Set<Class<?>>> levels = ANNOTATIONS.get(service.getClass());
+            for (int level = 0; level <= ANY; level++) {
+                for (Class<?> annotation : levels.get(level)) {
+                    this.slots.get(level).computeIfAbsent(annotation, k -> new BitSet()).set(slot);
+                }
+            }
+        }
+
+        this.lazySlots = new int[lazy];
+        System.arraycopy(lazySlots, 0, this.lazySlots, 0, lazy);
+    }
+
+    /**
+     * @param level where the annotations must be found, CLASS, CONSTRUCTOR, METHOD, MEMBER or ANY
+     * @param annotations every annotation a service must have
+     * @return matching services in installation order, lazy services not yet instantiated are left out
+     */
+    Object[] find(final int level, final Class<?>[] annotations) {
+        if (annotations.length == 0) {
+            return new Object[0];
+        }
+
+        // services installed as instances
+        final Map<Class<?>, BitSet> index = this.slots.get(level);
+        BitSet matches = null;
+        for (Class<?> annotation : annotations) {
+            BitSet slots = index.get(annotation);
+            if (slots == null) {
+                matches = new BitSet();
+                break;
+            } else if (matches == null) {
+                matches = (BitSet) slots.clone();
+            } else {
+                matches.and(slots);
+            }
+        }
+
+        // lazy services that have been looked up
+        for (int slot : this.lazySlots) {
+            Object service = ((LazyService) this.table.service(slot)).getIfInstantiated();
+            if (service == null) {
+                continue;
+            }
+
+            Set<Class<?>> found = ANNOTATIONS.get(service.getClass()).get(level);
+            boolean all = true;
+            for (Class<?> annotation : annotations) {
+                all = all && found.contains(annotation);
+            }
+            if (all) {
+                matches.set(slot);
+            }
+        }
+
+        Object[] services = new Object[matches.cardinality()];
+        int i = 0;
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            Object service = this.table.service(slot);
+            if (service instanceof LazyService) {
+                service = ((LazyService) service).getIfInstantiated();
+            }
+            services[i++] = service;
+        }
+
+        return services;
+    }
+
+    private static Set<Class<?>> annotationTypes(final AnnotatedElement... elements) {
+        Set<Class<?>> types = new HashSet<>();
+        for (AnnotatedElement element : elements) {
+            for (Annotation annotation : element.getAnnotations()) {
+                types.add(annotation.annotationType());
+            }
+        }
+
+        return types;
+    }
+}
@@ -0,0 +1,81 @@
+package addy.context;
+
+import java.util.function.Supplier;
+
+/**
+ * Placeholder stored in the ServiceContext for a service that is instantiated on first lookup.
+ * The factory is invoked at most once, concurrent lookups wait for the first one to finish.
+ */
+public class LazyService
+{
+    private final Supplier<Object> factory;
+    private final Class<?> type;
+    private final Supplier<Object> instantiated;
+    private volatile Object instance;
+
+    public LazyService(final Supplier<Object> factory) {
+        this(factory, null);
+    }
+
+    /**
+     * @param factory
+     * @param type declared type of the service, used to find it by type before it is instantiated
+     */
+    public LazyService(final Supplier<Object> factory, final Class<?> type) {
+        this(factory, type, null);
+    }
+
+    /**
+     * @param factory
+     * @param type declared type of the service
+     * @param instantiated the instance if it was created without this placeholder, eg. as the
+     *                     dependency of another service, otherwise null
+     */
+    public LazyService(final Supplier<Object> factory, final Class<?> type, final Supplier<Object> instantiated) {
+        this.factory = factory;
+        this.type = type;
+        this.instantiated = instantiated;
+        this.instance = null;
+    }
+
+    /**
+     * @return the service, instantiated on the first call
+     */
+    public Object get() {
+        Object service = this.instance;
+        if (service != null) {
+            return service;
+        }
+
+        synchronized (this) {
+            if (this.instance == null) {
+                this.instance = this.factory.get();
+            }
+
+            return this.instance;
+        }
+    }
+
+    /**
+     * @return the service if it has been instantiated, otherwise null
+     */
+    public Object getIfInstantiated() {
+        Object service = this.instance;
+        if (service == null && this.instantiated != null) {
+            service = this.instantiated.get();
+        }
+
+        return service;
+    }
+
+    /**
+     * @return declared type of the service, or null if unknown
+     */
+    public Class<?> getType() {
+        return this.type;
+    }
+
+    public boolean isInstantiated() {
+        return this.getIfInstantiated() != null;
+    }
+}
@@ -0,0 +1,169 @@
+package addy.context;
+
+import addy.Closer;
+import addy.InjectorListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closes Closer services in reverse dependency order, a service is closed once every
+ * service depending on it, directly or through services that are not closers, is closed.
+ * Closers that don't depend on each other are closed in parallel.
+ *
+ * A closer that runs past the deadline is given up on, it keeps running, but the services
+ * it depends on are closed without waiting for it.
+ */
+public class ParallelCloser
+{
+    private final Map<String, Closer> closers;
+    private final Map<String, List<String>> dependencies;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final long deadline;
+    private final InjectorListener listener;
+
+    private final Map<String, List<String>> closesAfter;
+    private final Map<String, AtomicInteger> pending;
+    private final CountDownLatch finished;
+
+    /**
+     * @param closers services to close by name, in installation order
+     * @param dependencies direct dependencies of every service by name
+     * @param executor runs the close methods
+     * @param timer enforces the deadline, or null to wait for every closer
+     * @param deadline nanoseconds every closer is given
+     * @param listener receives the time spent closing each service
+     */
+    public ParallelCloser(final Map<String, Closer> closers,
+                          final Map<String, List<String>> dependencies,
+                          final Executor executor,
+                          final ScheduledExecutorService timer,
+                          final long deadline,
+                          final InjectorListener listener)
+    {
+        this.closers = closers;
+        this.dependencies = dependencies;
+        this.executor = executor;
+        this.timer = timer;
+        this.deadline = deadline;
+        this.listener = listener;
+
+        this.closesAfter = new LinkedHashMap<>(closers.size());
+        this.pending = new LinkedHashMap<>(closers.size());
+        this.finished = new CountDownLatch(closers.size());
+    }
+
+    /**
+     * Close every service and block until each has been closed or run past the deadline.
+     */
+    public void close() {
+        for (String name : this.closers.keySet()) {
+            this.pending.put(name, new AtomicInteger());
+        }
+        for (String name : this.closers.keySet()) {
+            List<String> dependencies = this.closerDependencies(name);
+            this.closesAfter.put(name, dependencies);
+            for (String dependency : dependencies) {
+                this.pending.get(dependency).incrementAndGet();
+            }
+        }
+
+        for (Map.Entry<String, AtomicInteger> entry : this.pending.entrySet()) {
+            if (entry.getValue().get() == 0) {
+                this.submit(entry.getKey());
+            }
+        }
+
+        try {
+            this.finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param name of a closer
+     * @return the closers the given closer depends on, without any closer in between
+     */
+    private List<String> closerDependencies(final String name) {
+        List<String> found = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> next = new ArrayDeque<>(this.dependencies.getOrDefault(name, Collections.emptyList()));
+        while (!next.isEmpty()) {
+            String dependency = next.pop();
+            if (dependency.equals(name) || !visited.add(dependency)) {
+                continue;
+            }
+
+            if (this.closers.containsKey(dependency)) {
+                // the closer waits for its own dependencies in turn
+                found.add(dependency);
+                continue;
+            }
+
+            next.addAll(this.dependencies.getOrDefault(dependency, Collections.emptyList()));
+        }
+
+        return found;
+    }
+
+    private void submit(final String name) {
+        final Closer closer = this.closers.get(name);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final long start = System.nanoTime();
+
+        if (this.timer != null) {
+            this.timer.schedule(() -> {
+                if (done.compareAndSet(false, true)) {
+                    this.done(name, System.nanoTime() - start, true);
+                }
+            }, this.deadline, TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            this.executor.execute(() -> {
+                try {
+                    closer.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                if (done.compareAndSet(false, true)) {
+                    this.done(name, System.nanoTime() - start, false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            e.printStackTrace();
+            if (done.compareAndSet(false, true)) {
+                this.done(name, System.nanoTime() - start, false);
+            }
+        }
+    }
+
+    private void done(final String name, final long nanos, final boolean timedOut) {
+        this.listener.serviceClosed(name, nanos, timedOut);
+
+        for (String dependency : this.closesAfter.get(name)) {
+            if (this.pending.get(dependency).decrementAndGet() == 0) {
+                this.submit(dependency);
+            }
+        }
+
+        this.finished.countDown();
+    }
+}
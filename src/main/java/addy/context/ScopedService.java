@@ -0,0 +1,110 @@
+package addy.context;
+
+import addy.Recyclable;
+import addy.annotations.Scope;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Placeholder stored in the ServiceContext for a service with a thread or request scope.
+ * Every lookup returns the instance of the current scope, which is taken from a bounded
+ * pool of recycled instances or created when the pool is empty.
+ *
+ * Scoped instances are never seen as instantiated, such that iterating the context,
+ * annotation queries and closing leave them out.
+ */
+public class ScopedService
+        extends LazyService
+{
+    private final Scope scope;
+    private final Function<ServiceGetter, Object> factory;
+
+    private volatile ServiceContext context;
+    private BlockingQueue<Object> pool;
+
+    /**
+     * @param scope THREAD or REQUEST
+     * @param factory creates a new instance, dependencies are looked up through the given getter
+     * @param type declared type of the service
+     */
+    public ScopedService(final Scope scope,
+                         final Function<ServiceGetter, Object> factory,
+                         final Class<?> type)
+    {
+        super(null, type);
+        this.scope = scope;
+        this.factory = factory;
+        this.context = null;
+        this.pool = null;
+    }
+
+    /**
+     * @param context the service is installed in
+     * @param poolSize max number of recycled instances kept, 0 to not pool instances
+     */
+    void bind(final ServiceContext context, final int poolSize) {
+        this.pool = poolSize > 0 ? new ArrayBlockingQueue<>(poolSize) : null;
+        this.context = context;
+    }
+
+    /**
+     * @return the instance of the current scope
+     */
+    @Override
+    public Object get() {
+        final ServiceContext context = this.context;
+        if (context == null) {
+            throw new RuntimeException("scoped service is not installed in a service context");
+        }
+
+        return context.currentScope(this.scope).get(this);
+    }
+
+    @Override
+    public Object getIfInstantiated() {
+        return null;
+    }
+
+    @Override
+    public boolean isInstantiated() {
+        return false;
+    }
+
+    public Scope getScope() {
+        return this.scope;
+    }
+
+    /**
+     * @return a recycled instance, or a new one if none is pooled
+     */
+    Object acquire() {
+        Object instance = this.pool == null ? null : this.pool.poll();
+        if (instance == null) {
+            instance = this.factory.apply(this.context);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Recycle an instance of an exited scope, it is dropped if the pool is full.
+     *
+     * @param instance
+     */
+    void release(final Object instance) {
+        if (instance instanceof Recyclable) {
+            try {
+                ((Recyclable) instance).recycle();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        if (this.pool != null) {
+            this.pool.offer(instance);
+        }
+    }
+}
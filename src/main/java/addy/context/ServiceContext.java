@@ -1,14 +1,20 @@
 package addy.context;
 
 import addy.Closer;
+import addy.InjectorListener;
+import addy.annotations.Scope;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ServiceContext
     implements
@@ -19,10 +25,56 @@ public class ServiceContext
         Closeable
 {
     public static final String NAME = "service-context";
+    private static final ThreadFactory CLOSER_THREADS = (Runnable r) -> {
+        Thread thread = new Thread(r, "addy-closer");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final ServiceContext parent;
     private final Map<String, Object> services;
+    private final Map<String, List<String>> dependencies;
+    private final Map<String, Set<String>> dependents;
+    private boolean updating;
+
+    // read only snapshot of services, published once the context is frozen
+    private volatile ServiceTable table;
+
+    private long closeTimeout;
+    private Executor closeExecutor;
+    private InjectorListener listener;
+
+    private final ThreadLocal<ServiceScope> threadScope;
+    private final ThreadLocal<ServiceScope> requestScope;
+    private int scopePoolSize;
 
     public ServiceContext() {
-        this.services = new HashMap<>();
+        this(null);
+    }
+
+    /**
+     * A child context holds its own services, lookups of any other service fall through to
+     * the parent. The services of the parent are shared, never copied.
+     *
+     * Iterating, annotation queries and closing only cover the services of the child itself.
+     *
+     * @param parent context to fall back to, or null
+     */
+    public ServiceContext(final ServiceContext parent) {
+        this.parent = parent;
+        this.services = new LinkedHashMap<>();
+        this.dependencies = new LinkedHashMap<>();
+        this.dependents = new HashMap<>();
+        this.updating = false;
+        this.table = null;
+
+        this.closeTimeout = 0;
+        this.closeExecutor = null;
+        this.listener = InjectorListener.NONE;
+
+        this.threadScope = new ThreadLocal<>();
+        this.requestScope = new ThreadLocal<>();
+        this.scopePoolSize = 32;
     }
 
     @Override
@@ -35,16 +87,408 @@ public class ServiceContext
             String err = "cannot store null instance";
             throw new RuntimeException(err);
         }
-        this.services.put(name.toLowerCase(), service);
+
+        synchronized (this.services) {
+            this.services.put(name.toLowerCase(), service);
+            if (this.table != null && !this.updating) {
+                // copy on write, readers keep using the previous table until the new one is published
+                this.publish();
+            }
+        }
+    }
+
+    /**
+     * Replace and remove several services at once. Readers see either every change or none,
+     * and the table is copied only once.
+     *
+     * @param changes stores the new services through the given setter
+     * @param removed names of services to remove
+     */
+    public void update(final Consumer<ServiceSetter> changes, final Collection<String> removed) {
+        synchronized (this.services) {
+            this.updating = true;
+            try {
+                changes.accept(this);
+                for (String name : removed) {
+                    String key = name.toLowerCase();
+                    this.services.remove(key);
+                    this.setServiceDependencies(key, Collections.emptyList());
+                    this.dependencies.remove(key);
+                }
+            } finally {
+                this.updating = false;
+            }
+
+            if (this.table != null) {
+                this.publish();
+            }
+        }
+    }
+
+    private void publish() {
+        ServiceTable table = this.snapshot();
+        table.types();
+        table.annotations();
+        this.table = table;
+    }
+
+    @Override
+    public void setScopedService(final String name, final ScopedService service) {
+        service.bind(this, this.scopePoolSize);
+        this.setService(name, service);
+    }
+
+    /**
+     * Must be set before scoped services are installed.
+     *
+     * @param size max number of recycled instances kept for every scoped service, 0 to not pool
+     */
+    public void setScopePoolSize(final int size) {
+        this.scopePoolSize = size;
+    }
+
+    /**
+     * Enter a new request scope on the current thread, until the returned scope is closed.
+     * Request scopes may be nested, the enclosing scope is restored on exit.
+     *
+     * @return the new request scope
+     */
+    public ServiceScope enterRequestScope() {
+        ServiceScope scope = new ServiceScope(Scope.REQUEST, this.requestScope.get(), this.requestScope);
+        this.requestScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * Recycle the thread scoped instances of the current thread, eg. before a pooled thread
+     * picks up an unrelated task. The next lookup starts a new thread scope.
+     */
+    public void exitThreadScope() {
+        ServiceScope scope = this.threadScope.get();
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    /**
+     * @param scope THREAD or REQUEST
+     * @return the current scope of the thread
+     */
+    ServiceScope currentScope(final Scope scope) {
+        if (scope == Scope.THREAD) {
+            ServiceScope current = this.threadScope.get();
+            if (current == null) {
+                current = new ServiceScope(Scope.THREAD, null, this.threadScope);
+                this.threadScope.set(current);
+            }
+
+            return current;
+        } else if (scope == Scope.REQUEST) {
+            ServiceScope current = this.requestScope.get();
+            if (current == null) {
+                throw new RuntimeException("no request scope on this thread, see enterRequestScope");
+            }
+
+            return current;
+        }
+
+        throw new RuntimeException("not a scope with instances per scope: " + scope);
+    }
+
+    @Override
+    public void setServiceDependencies(final String name, final List<String> dependencies) {
+        final String key = name.toLowerCase();
+        synchronized (this.services) {
+            List<String> previous = this.dependencies.put(key, new ArrayList<>(dependencies));
+            if (previous != null) {
+                for (String dependency : previous) {
+                    Set<String> dependents = this.dependents.get(dependency);
+                    if (dependents != null) {
+                        dependents.remove(key);
+                    }
+                }
+            }
+            for (String dependency : dependencies) {
+                this.dependents.computeIfAbsent(dependency.toLowerCase(), k -> new LinkedHashSet<>()).add(key);
+            }
+        }
+    }
+
+    /**
+     * @return every installed service mapped to the names of the services it was created from,
+     * in installation order
+     */
+    public Map<String, List<String>> getServiceDependencies() {
+        synchronized (this.services) {
+            Map<String, List<String>> dependencies = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : this.dependencies.entrySet()) {
+                dependencies.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+
+            return dependencies;
+        }
+    }
+
+    /**
+     * @param name of a service
+     * @return names of the services it was created from
+     */
+    public List<String> getServiceDependencies(final String name) {
+        synchronized (this.services) {
+            List<String> dependencies = this.dependencies.get(name.toLowerCase());
+            return dependencies == null ? Collections.emptyList() : new ArrayList<>(dependencies);
+        }
+    }
+
+    /**
+     * @param name of a service
+     * @return names of the services created from it
+     */
+    public Set<String> getServiceDependents(final String name) {
+        synchronized (this.services) {
+            Set<String> dependents = this.dependents.get(name.toLowerCase());
+            return dependents == null ? Collections.emptySet() : new LinkedHashSet<>(dependents);
+        }
+    }
+
+    /**
+     * Switch to a read optimized, immutable table of the services. Lookups on a frozen
+     * context neither allocate nor lock, and may be done from any thread. Services can still
+     * be stored afterwards, but every write copies the whole table.
+     */
+    @Override
+    public void freeze() {
+        synchronized (this.services) {
+            if (!this.updating) {
+                this.publish();
+            }
+        }
+    }
+
+    public boolean isFrozen() {
+        return this.table != null;
+    }
+
+    private ServiceTable snapshot() {
+        String[] names = new String[this.services.size()];
+        Object[] services = new Object[names.length];
+        int slot = 0;
+        for (Map.Entry<String, Object> entry : this.services.entrySet()) {
+            names[slot] = entry.getKey();
+            services[slot] = entry.getValue();
+            slot++;
+        }
+
+        return new ServiceTable(names, services);
+    }
+
+    @Override
+    public void setLazyService(final String name, final LazyService service) {
+        this.setService(name, service);
     }
 
     @Override
     public Object getService(final String name) {
-        if (this.services.containsKey(name.toLowerCase())) {
-            return this.services.get(name.toLowerCase());
+        final ServiceTable table = this.table;
+        Object service;
+        if (table != null) {
+            service = table.get(name);
+        } else {
+            synchronized (this.services) {
+                service = this.services.get(name.toLowerCase());
+            }
+        }
+
+        if (service instanceof LazyService) {
+            return ((LazyService) service).get();
+        } else if (service == null && this.parent != null) {
+            return this.parent.getService(name);
+        }
+
+        return service;
+    }
+
+    /**
+     * @param name of a service in this context
+     * @return the service, or null if it does not exist, is scoped or is lazy and not yet instantiated
+     */
+    public Object getInstantiatedService(final String name) {
+        Object service = this.table().get(name);
+        if (service instanceof LazyService) {
+            return ((LazyService) service).getIfInstantiated();
+        }
+
+        return service;
+    }
+
+    /**
+     * @param type class, superclass or interface of the service
+     * @return name of the only service of the given type, in this context or a parent, or null if there is none
+     * @throws InstantiationError if there is more than one service of the given type
+     */
+    public String getServiceName(final Class<?> type) {
+        final ServiceTable table = this.table();
+        final List<Object> entries = table.types().get(type);
+        if (entries.isEmpty()) {
+            return this.parent == null ? null : this.parent.getServiceName(type);
         }
 
-        return null;
+        final List<String> names = names(table, entries);
+        if (names.size() > 1) {
+            throw new InstantiationError("expected one service of type " + type.getName() + ", found " + names);
+        }
+
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    /**
+     * @param table to find the names in
+     * @param entries services or lazy services of the table
+     * @return names of the entries in installation order
+     */
+    private static List<String> names(final ServiceTable table, final List<Object> entries) {
+        final List<String> names = new ArrayList<>(entries.size());
+        for (int slot = 0; slot < table.size(); slot++) {
+            for (Object entry : entries) {
+                if (table.service(slot) == entry) {
+                    names.add(table.name(slot));
+                    break;
+                }
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * @return the parent context, or null if this is a root context
+     */
+    public ServiceContext getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Resolve a service name into a key for repeated lookups. Resolve keys after the
+     * context has been frozen, keys resolved before then are looked up by name.
+     *
+     * @param name service name, in any case
+     * @return key for getService(ServiceKey)
+     */
+    public ServiceKey key(final String name) {
+        final ServiceTable table = this.table;
+        final int slot = table == null ? -1 : table.slot(name);
+        return new ServiceKey(this, name, slot, slot == -1 ? null : table.name(slot));
+    }
+
+    /**
+     * @param key resolved by this context
+     * @return the service, or null if there is no service with the name of the key
+     */
+    public Object getService(final ServiceKey key) {
+        Object service;
+        final int slot = key.getSlot();
+        final ServiceTable table = this.table;
+        if (slot != -1 && key.getContext() == this && slot < table.size() && table.name(slot) == key.getSlotName()) {
+            // slots only move when services are removed, the name stored in the slot tells
+            service = table.service(slot);
+        } else {
+            return this.getService(key.getName());
+        }
+
+        if (service instanceof LazyService) {
+            return ((LazyService) service).get();
+        }
+
+        return service;
+    }
+
+    /**
+     * Agrees with getServiceName(Class) and with @Inject without a name, a scoped service
+     * is the instance of the current scope.
+     *
+     * @param type class, superclass or interface of the service
+     * @return the only service of the given type, in this context or a parent, or null if there is none
+     * @throws InstantiationError if there is more than one service of the given type
+     */
+    public <T> T getService(final Class<T> type) {
+        final ServiceTable table = this.table();
+        final List<Object> entries = table.types().get(type);
+        if (entries.isEmpty()) {
+            return this.parent == null ? null : this.parent.getService(type);
+        } else if (entries.size() > 1) {
+            throw new InstantiationError("expected one service of type " + type.getName() + ", found " + names(table, entries));
+        }
+
+        Object service = entries.get(0);
+        if (service instanceof LazyService) {
+            service = ((LazyService) service).get();
+        }
+
+        return type.cast(service);
+    }
+
+    /**
+     * Lazy services of the given type are instantiated.
+     *
+     * @param type class, superclass or interface of the services
+     * @return every service of the given type in installation order, followed by those of the parent, never null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getServices(final Class<T> type) {
+        final List<Object> entries = this.types().get(type);
+        if (this.parent != null) {
+            List<Object> services = new ArrayList<>(resolve(entries, true));
+            services.addAll(this.parent.getServices(type));
+            return (List<T>) Collections.unmodifiableList(services);
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i) instanceof LazyService) {
+                return (List<T>) resolve(entries, true);
+            }
+        }
+
+        // the indexed list is immutable and holds nothing but instances
+        return (List<T>) entries;
+    }
+
+    private TypeIndex<Object> types() {
+        return this.table().types();
+    }
+
+    /**
+     * @return the frozen table, or a snapshot of the services if the context isn't frozen yet
+     */
+    private ServiceTable table() {
+        ServiceTable table = this.table;
+        if (table == null) {
+            synchronized (this.services) {
+                table = this.snapshot();
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * @param entries services or lazy services
+     * @param instantiate instantiate lazy services, otherwise lazy services not yet instantiated are left out
+     */
+    private static List<Object> resolve(final List<Object> entries, final boolean instantiate) {
+        List<Object> services = new ArrayList<>(entries.size());
+        for (Object service : entries) {
+            if (service instanceof LazyService) {
+                LazyService lazy = (LazyService) service;
+                service = instantiate ? lazy.get() : lazy.getIfInstantiated();
+                if (service == null) {
+                    continue;
+                }
+            }
+
+            services.add(service);
+        }
+
+        return Collections.unmodifiableList(services);
     }
 
     @Override
@@ -59,12 +503,25 @@ public class ServiceContext
         return instance;
     }
 
+    /**
+     * The map is a read only snapshot, it used to be the live map of the context. Writes
+     * throw an UnsupportedOperationException, register services with setService instead.
+     *
+     * @return every instantiated service, lazy services not yet looked up are left out
+     */
     public Map<String, Object> getServices() {
-        return this.services;
+        return Collections.unmodifiableMap(this.foreach(null, null));
     }
 
     public int size() {
-        return this.services.size();
+        final ServiceTable table = this.table;
+        if (table != null) {
+            return table.size();
+        }
+
+        synchronized (this.services) {
+            return this.services.size();
+        }
     }
 
     public void foreach(final ServiceVoidCallback cb) {
@@ -78,14 +535,22 @@ public class ServiceContext
     }
 
     public Map<String, Object> foreach(final ServiceCallback cb, final Class classAnnotation) {
-        Map<String, Object> services = new HashMap<>();
-        for (Map.Entry<String, Object> entry : this.services.entrySet()) {
-            Object v = entry.getValue();
+        final ServiceTable table = this.table();
+        Map<String, Object> services = new LinkedHashMap<>();
+        for (int slot = 0; slot < table.size(); slot++) {
+            Object v = table.service(slot);
+            if (v instanceof LazyService) {
+                // don't instantiate lazy services just to iterate them
+                v = ((LazyService) v).getIfInstantiated();
+                if (v == null) {
+                    continue;
+                }
+            }
             if (classAnnotation != null && v.getClass().getAnnotation(classAnnotation) == null) {
                 continue;
             }
 
-            String k = entry.getKey();
+            String k = table.name(slot);
             if (cb == null || cb.addService(k, v)) {
                 services.put(k, v);
             }
@@ -106,82 +571,64 @@ public class ServiceContext
 
     @Override
     public Object[] getServicesWithAnnotation(final Class annotation) {
-        List<Object> services = new ArrayList<>();
-
-        addDistinctService(services, this.getServicesWithClassAnnotation(annotation));
-        addDistinctService(services, this.getServicesWithConstructorAnnotation(annotation));
-        addDistinctService(services, this.getServicesWithMethodAnnotation(annotation));
-        addDistinctService(services, this.getServicesWithMemberAnnotation(annotation));
-
-        return services.toArray();
+        return this.table().annotations().find(AnnotationIndex.ANY, new Class<?>[]{annotation});
     }
 
     @Override
-    public Object[] getServicesWithClassAnnotation(Class annotation) {
-        Collection<Object> values = this.foreach(null, annotation).values();
-
-        List<Object> services = new ArrayList<>(values);
-        return services.toArray();
+    public Object[] getServicesWithClassAnnotation(final Class annotation) {
+        return this.table().annotations().find(AnnotationIndex.CLASS, new Class<?>[]{annotation});
     }
 
     @Override
-    public Object[] getServicesWithConstructorAnnotation(Class annotation) {
-        Collection<Object> values = this.foreach((String name, Object service) -> {
-            for (Constructor constructor : service.getClass().getDeclaredConstructors()) {
-                if (constructor.getAnnotation(annotation) != null) {
-                    return true;
-                }
-            }
+    public Object[] getServicesWithConstructorAnnotation(final Class annotation) {
+        return this.table().annotations().find(AnnotationIndex.CONSTRUCTOR, new Class<?>[]{annotation});
+    }
 
-            return false;
-        }).values();
+    @Override
+    public Object[] getServicesWithMethodAnnotation(final Class annotation) {
+        return this.table().annotations().find(AnnotationIndex.METHOD, new Class<?>[]{annotation});
+    }
 
-        List<Object> services = new ArrayList<>(values);
-        return services.toArray();
+    @Override
+    public Object[] getServicesWithMemberAnnotation(final Class annotation) {
+        return this.table().annotations().find(AnnotationIndex.MEMBER, new Class<?>[]{annotation});
     }
 
+    /**
+     * @param annotations every annotation a service must have, on its class or any constructor, method or field
+     * @return the services in installation order, lazy services not yet looked up are left out
+     */
     @Override
-    public Object[] getServicesWithMethodAnnotation(Class annotation) {
-        Collection<Object> values = this.foreach((String name, Object service) -> {
-            for (Method method : service.getClass().getDeclaredMethods()) {
-                if (method.getAnnotation(annotation) != null) {
-                    return true;
-                }
-            }
+    public final Object[] getServicesWithAnnotations(final Class<?>... annotations) {
+        return this.table().annotations().find(AnnotationIndex.ANY, annotations);
+    }
 
-            return false;
-        }).values();
+    @Override
+    public final Object[] getServicesWithClassAnnotations(final Class<?>... annotations) {
+        return this.table().annotations().find(AnnotationIndex.CLASS, annotations);
+    }
 
-        List<Object> services = new ArrayList<>(values);
-        return services.toArray();
+    @Override
+    public final Object[] getServicesWithConstructorAnnotations(final Class<?>... annotations) {
+        return this.table().annotations().find(AnnotationIndex.CONSTRUCTOR, annotations);
     }
 
     @Override
-    public Object[] getServicesWithMemberAnnotation(Class annotation) {
-        Collection<Object> values = this.foreach((String name, Object service) -> {
-            for (Field field : service.getClass().getDeclaredFields()) {
-                if (field.getAnnotation(annotation) != null) {
-                    return true;
-                }
-            }
-            return false;
-        }).values();
+    public final Object[] getServicesWithMethodAnnotations(final Class<?>... annotations) {
+        return this.table().annotations().find(AnnotationIndex.METHOD, annotations);
+    }
 
-        List<Object> services = new ArrayList<>(values);
-        return services.toArray();
+    @Override
+    public final Object[] getServicesWithMemberAnnotations(final Class<?>... annotations) {
+        return this.table().annotations().find(AnnotationIndex.MEMBER, annotations);
     }
 
+    /**
+     * @param i interface, or any other supertype, of the services
+     * @return every instantiated service of the given type, lazy services not yet looked up are left out
+     */
     public Object[] getServicesWithInterface(Class i) {
-        Collection<Object> values = this.foreach((String name, Object service) -> {
-            for (Class interfaceClass: service.getClass().getInterfaces()) {
-                if (interfaceClass == i) {
-                    return true;
-                }
-            }
-            return false;
-        }).values();
-
-        return values.toArray();
+        return resolve(this.types().get(i), false).toArray();
     }
 
     private void print() {
@@ -195,19 +642,101 @@ public class ServiceContext
     }
 
 
+    /**
+     * Give up on a Closer service that has not returned within the timeout, and go on closing
+     * the services it depends on. By default every closer is waited for.
+     *
+     * @param timeout 0 to wait for every closer
+     * @param unit
+     */
+    public void setCloseTimeout(final long timeout, final TimeUnit unit) {
+        this.closeTimeout = unit.toNanos(timeout);
+    }
+
+    /**
+     * @param executor runs the close methods, by default a daemon thread is started for each
+     */
+    public void setCloseExecutor(final Executor executor) {
+        this.closeExecutor = executor;
+    }
+
+    /**
+     * @param listener receives the time spent closing every Closer service
+     */
+    public void setListener(final InjectorListener listener) {
+        this.listener = listener == null ? InjectorListener.NONE : listener;
+    }
+
     /**
      * When shutting down the application, go through every service
      * implementing the Closer interface and invoke the close method.
+     *
+     * Services are closed before the services they depend on, and services that don't
+     * depend on each other are closed in parallel.
+     *
+     * @see ParallelCloser
      */
     @Override
     public void close()
     {
-        for (Object service : getServicesWithInterface(Closer.class)) {
-            Closer closer = (Closer) service;
-            try {
-                closer.close();
-            } catch (Exception e) {
-                e.printStackTrace();
+        final ServiceTable table = this.table();
+        Map<String, Object> services = new LinkedHashMap<>();
+        for (int slot = 0; slot < table.size(); slot++) {
+            Object service = table.service(slot);
+            if (service instanceof LazyService) {
+                // lazy services never looked up have nothing to close
+                service = ((LazyService) service).getIfInstantiated();
+            }
+            if (service != null) {
+                services.put(table.name(slot), service);
+            }
+        }
+
+        Map<String, List<String>> dependencies;
+        synchronized (this.services) {
+            dependencies = new HashMap<>(this.dependencies);
+        }
+
+        this.closeServices(services, dependencies);
+    }
+
+    /**
+     * Close the Closer services among the given services, as close does for every service.
+     *
+     * @param services by name, eg. services that have been replaced
+     * @param dependencies direct dependencies of the services by name
+     */
+    public void closeServices(final Map<String, Object> services, final Map<String, List<String>> dependencies)
+    {
+        Map<String, Closer> closers = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> service : services.entrySet()) {
+            if (service.getValue() instanceof Closer) {
+                closers.put(service.getKey(), (Closer) service.getValue());
+            }
+        }
+        if (closers.isEmpty()) {
+            return;
+        }
+
+        ExecutorService threads = null;
+        Executor executor = this.closeExecutor;
+        if (executor == null) {
+            threads = Executors.newCachedThreadPool(CLOSER_THREADS);
+            executor = threads;
+        }
+        ScheduledExecutorService timer = null;
+        if (this.closeTimeout > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(CLOSER_THREADS);
+        }
+
+        try {
+            new ParallelCloser(closers, dependencies, executor, timer, this.closeTimeout, this.listener).close();
+        } finally {
+            if (threads != null) {
+                threads.shutdown();
+            }
+            if (timer != null) {
+                timer.shutdownNow();
             }
         }
     }
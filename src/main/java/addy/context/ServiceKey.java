@@ -0,0 +1,53 @@
+package addy.context;
+
+/**
+ * A service name resolved once against a ServiceContext, for lookups that skip hashing
+ * the name. Keys are meant to be cached, in a static or instance field.
+ *
+ * <pre>
+ * private static final ServiceKey DATABASE = ctx.key("database");
+ * ...
+ * Database db = (Database) ctx.getService(DATABASE);
+ * </pre>
+ *
+ * A key only points into the slot table of the context it was resolved from, and only if
+ * that context was frozen at the time. Any other key falls back to a lookup by name.
+ */
+public final class ServiceKey
+{
+    private final ServiceContext context;
+    private final String name;
+    private final int slot;
+    private final String slotName;
+
+    ServiceKey(final ServiceContext context, final String name, final int slot, final String slotName) {
+        this.context = context;
+        this.name = name;
+        this.slot = slot;
+        this.slotName = slotName;
+    }
+
+    ServiceContext getContext() {
+        return this.context;
+    }
+
+    int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * @return the name stored in the slot when the key was resolved, compared by identity
+     */
+    String getSlotName() {
+        return this.slotName;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceKey(" + this.name + ")";
+    }
+}
@@ -0,0 +1,90 @@
+package addy.context;
+
+import addy.annotations.Scope;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The scoped service instances of one thread or one request. Exiting the scope, by closing
+ * it, recycles every instance into the pool of its service.
+ *
+ * <pre>
+ * try (ServiceScope request = ctx.enterRequestScope()) {
+ *     Handler handler = (Handler) ctx.getService("handler");
+ *     ...
+ * }
+ * </pre>
+ *
+ * @see Scope
+ */
+public class ServiceScope
+        implements
+        AutoCloseable
+{
+    private final Scope scope;
+    private final ServiceScope previous;
+    private final ThreadLocal<ServiceScope> current;
+    private final Map<ScopedService, Object> instances;
+    private boolean exited;
+
+    /**
+     * @param scope THREAD or REQUEST
+     * @param previous scope to restore when this scope is exited, or null
+     * @param current thread local holding the scope of the current thread
+     */
+    ServiceScope(final Scope scope, final ServiceScope previous, final ThreadLocal<ServiceScope> current) {
+        this.scope = scope;
+        this.previous = previous;
+        this.current = current;
+        this.instances = new IdentityHashMap<>();
+        this.exited = false;
+    }
+
+    /**
+     * @param service
+     * @return the instance of the service in this scope, acquired on the first call
+     */
+    synchronized Object get(final ScopedService service) {
+        if (this.exited) {
+            throw new RuntimeException("the " + this.scope.name().toLowerCase() + " scope has already been exited");
+        }
+
+        Object instance = this.instances.get(service);
+        if (instance == null) {
+            instance = service.acquire();
+            this.instances.put(service, instance);
+        }
+
+        return instance;
+    }
+
+    public Scope getScope() {
+        return this.scope;
+    }
+
+    /**
+     * Exit the scope, every instance is recycled, and the enclosing scope, if any, becomes
+     * the current scope of the thread again.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.exited) {
+            return;
+        }
+        this.exited = true;
+
+        for (Map.Entry<ScopedService, Object> entry : this.instances.entrySet()) {
+            entry.getKey().release(entry.getValue());
+        }
+        this.instances.clear();
+
+        if (this.current.get() == this) {
+            if (this.previous == null) {
+                this.current.remove();
+            } else {
+                this.current.set(this.previous);
+            }
+        }
+    }
+}
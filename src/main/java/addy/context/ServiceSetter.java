@@ -1,5 +1,38 @@
 package addy.context;
 
+import java.util.List;
+
 public interface ServiceSetter {
     void setService(final String name, final Object instance);
+
+    /**
+     * Store a service with a thread or request scope, looked up per scope.
+     */
+    default void setScopedService(final String name, final ScopedService service) {
+        throw new RuntimeException("scoped services are not supported, unable to store: " + name);
+    }
+
+    /**
+     * Remember which services a service was created from, eg. to close them in order.
+     *
+     * @param name of the service
+     * @param dependencies names of the services injected into it
+     */
+    default void setServiceDependencies(final String name, final List<String> dependencies) {
+    }
+
+    /**
+     * Store a service which is instantiated on first lookup. Setters without lazy
+     * support instantiate the service right away.
+     */
+    default void setLazyService(final String name, final LazyService service) {
+        this.setService(name, service.get());
+    }
+
+    /**
+     * Called once every service has been stored. Setters may switch to a read optimized
+     * representation from here on.
+     */
+    default void freeze() {
+    }
 }
@@ -0,0 +1,141 @@
+package addy.context;
+
+/**
+ * Immutable, case insensitive, open addressing table from service name to service.
+ *
+ * Services are stored in dense slots, in the order they were given. Names are compared
+ * character by character in lower case, so a lookup neither allocates nor locks.
+ */
+final class ServiceTable
+{
+    private final String[] names;
+    private final Object[] services;
+
+    // slot + 1 for every used bucket, 0 for empty buckets
+    private final int[] buckets;
+    private final int mask;
+
+    // built on first use, the result is immutable so racing builds are harmless
+    private volatile TypeIndex<Object> types;
+    private volatile AnnotationIndex annotations;
+
+    /**
+     * @param names lower case service names, must be distinct
+     * @param services in the same order as the names
+     */
+    ServiceTable(final String[] names, final Object[] services) {
+        this.names = names;
+        this.services = services;
+
+        int capacity = 2;
+        while (capacity < names.length * 2) {
+            capacity <<= 1;
+        }
+        this.buckets = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int slot = 0; slot < names.length; slot++) {
+            int bucket = hash(names[slot]) & this.mask;
+            while (this.buckets[bucket] != 0) {
+                bucket = (bucket + 1) & this.mask;
+            }
+            this.buckets[bucket] = slot + 1;
+        }
+    }
+
+    /**
+     * @param name service name, in any case
+     * @return slot of the service or -1 if there is no service with the given name
+     */
+    int slot(final String name) {
+        int bucket = hash(name) & this.mask;
+        int slot;
+        while ((slot = this.buckets[bucket]) != 0) {
+            if (matches(this.names[slot - 1], name)) {
+                return slot - 1;
+            }
+            bucket = (bucket + 1) & this.mask;
+        }
+
+        return -1;
+    }
+
+    Object get(final String name) {
+        final int slot = this.slot(name);
+        return slot == -1 ? null : this.services[slot];
+    }
+
+    int size() {
+        return this.names.length;
+    }
+
+    String name(final int slot) {
+        return this.names[slot];
+    }
+
+    Object service(final int slot) {
+        return this.services[slot];
+    }
+
+    /**
+     * @return every service indexed by its type, lazy services by their declared type
+     */
+    TypeIndex<Object> types() {
+        TypeIndex<Object> types = this.types;
+        if (types != null) {
+            return types;
+        }
+
+        types = new TypeIndex<>();
+        for (Object service : this.services) {
+            if (service instanceof LazyService) {
+                types.add(((LazyService) service).getType(), service);
+            } else {
+                types.add(service.getClass(), service);
+            }
+        }
+
+        this.types = types;
+        return types;
+    }
+
+    /**
+     * @return the annotations of every service, built on first use like the type index
+     */
+    AnnotationIndex annotations() {
+        AnnotationIndex annotations = this.annotations;
+        if (annotations == null) {
+            annotations = new AnnotationIndex(this);
+            this.annotations = annotations;
+        }
+
+        return annotations;
+    }
+
+    private static int hash(final String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + Character.toLowerCase(name.charAt(i));
+        }
+
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param key lower case name stored in the table
+     * @param name name looked up, in any case
+     */
+    private static boolean matches(final String key, final String name) {
+        if (key.length() != name.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != Character.toLowerCase(name.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package addy.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps every class and interface of a type hierarchy to the entries added with that type,
+ * such that an entry of type ArrayList is found by List, Collection, AbstractList, etc.
+ * Object is left out, as every entry would match it.
+ *
+ * @param <T> entry type, eg. a service instance
+ */
+public class TypeIndex<T>
+{
+    private final Map<Class<?>, List<T>> entries;
+    private final Map<Class<?>, List<T>> views;
+
+    public TypeIndex() {
+        this.entries = new HashMap<>();
+        this.views = new HashMap<>();
+    }
+
+    /**
+     * @param type of the entry, every supertype is indexed as well
+     * @param entry
+     */
+    public void add(final Class<?> type, final T entry) {
+        this.add(type, entry, new HashSet<>());
+    }
+
+    private void add(final Class<?> type, final T entry, final Set<Class<?>> visited) {
+        if (type == null || type == Object.class || !visited.add(type)) {
+            return;
+        }
+
+        List<T> list = this.entries.get(type);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            this.entries.put(type, list);
+            this.views.put(type, Collections.unmodifiableList(list));
+        }
+        list.add(entry);
+
+        this.add(type.getSuperclass(), entry, visited);
+        for (Class<?> i : type.getInterfaces()) {
+            this.add(i, entry, visited);
+        }
+    }
+
+    /**
+     * @param type
+     * @return every entry of the given type in the order they were added, never null
+     */
+    public List<T> get(final Class<?> type) {
+        List<T> view = this.views.get(type);
+        return view == null ? Collections.emptyList() : view;
+    }
+}
@@ -7,6 +7,9 @@ import org.junit.Test;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class InjectorTest {
     @Test
@@ -26,6 +29,29 @@ public class InjectorTest {
         assertEquals(Services.NUM_OF_GAME_COMPONENTS, ctx.size());
     }
 
+    @Test
+    public void testLoadingConfigurationWithMethodHandleInvokers() {
+        Injector loader = new Injector(Services.class, ServicesLazy.class);
+        loader.activateMethodHandleInvokers();
+        loader.activateFailOnNullInstance();
+        loader.load();
+        loader.branchOutDependencyTree();
+        loader.sortByDependencies();
+        loader.instantiateComponents();
+        loader.crashOnNullInstances();
+
+        ServiceContext ctx = new ServiceContext();
+        loader.installServices(ctx);
+        loader.findDepWireMethodsAndPopulate();
+
+        assertEquals(Services.NUM_OF_GAME_COMPONENTS + ServicesLazy.NUM_OF_GAME_COMPONENTS, ctx.size());
+        assertEquals(6, ctx.getService("getASixer"));
+
+        // constructor services through method handles
+        LazyLinkedService linked = (LazyLinkedService) ctx.getAssuredService("lazyLinkedService");
+        assertEquals("expensive-eager", linked.getExpensive());
+    }
+
     @Test
     public void testLoadingClassWithoutConfiguration() {
         Class<?> c = ServicesWithoutConfigAnnotation.class;
@@ -60,6 +86,13 @@ public class InjectorTest {
         assertEquals(Services.NUM_OF_GAME_COMPONENTS + ServicesExtra.NUM_OF_GAME_COMPONENTS, ctx.size());
     }
 
+    @Test(expected = StackOverflowError.class)
+    public void testDuplicateServices() {
+        Injector loader = new Injector(Services.class, Services.class);
+        loader.load();
+        loader.crashOnDuplicates();
+    }
+
     @Test(expected = RuntimeException.class)
     public void testServicesWithUnknownDependency() {
         Class<?> c = ServicesWithUnknownDep.class;
@@ -97,4 +130,19 @@ public class InjectorTest {
         loader.crashOnNullInstances();
     }
 
+    @Test
+    public void testCyclingDependencyReportsFullPath() {
+        Injector loader = new Injector(ServicesWithLongDepCycling.class);
+        loader.load();
+        try {
+            loader.branchOutDependencyTree();
+            fail("expected the dependency cycle to be detected");
+        } catch (InstantiationError e) {
+            String msg = e.getMessage();
+            assertTrue(msg, msg.contains("cyclea -> cycleb -> cyclec -> cyclea")
+                    || msg.contains("cycleb -> cyclec -> cyclea -> cycleb")
+                    || msg.contains("cyclec -> cyclea -> cycleb -> cyclec"));
+            assertFalse(msg, msg.contains("dependsoncycle"));
+        }
+    }
 }
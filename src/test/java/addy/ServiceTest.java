@@ -1,8 +1,36 @@
 package addy;
 
+import addy.context.ServiceContext;
+import addy.context.ServiceKey;
+import addy.context.ServiceScope;
 import addy.testdata.*;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
 public class ServiceTest {
     public ServiceTest() {}
 
@@ -17,6 +45,575 @@ public class ServiceTest {
 
 
 
+    @Test
+    public void testParallelInstantiationMatchesSequential() {
+        // not with ServicesExtra, it relies on Services.testPlease being instantiated first
+        InjectorManager sequential = new InjectorManager(Services.class);
+        sequential.loadAndWait();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        InjectorManager parallel = new InjectorManager(Services.class);
+        parallel.activateParallelInstantiation(executor);
+        parallel.loadAndWait();
+        executor.shutdown();
+
+        assertEquals(sequential.getSrvCtx().getServices().keySet(), parallel.getSrvCtx().getServices().keySet());
+        assertEquals(6, parallel.getSrvCtx().getService("getASixer"));
+    }
+
+    @Test
+    public void testAsyncServicesAreUnwrapped() {
+        InjectorManager sequential = new InjectorManager(ServicesAsync.class);
+        sequential.loadAndWait();
+        assertEquals("localhost/v2", sequential.getSrvCtx().getService("endpoint").toString());
+        assertEquals("localhost", sequential.getSrvCtx().getService("host"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        InjectorManager parallel = new InjectorManager(ServicesAsync.class);
+        parallel.activateParallelInstantiation(executor);
+        parallel.loadAndWait();
+        executor.shutdown();
+        assertEquals("localhost/v2", parallel.getSrvCtx().getService("endpoint").toString());
+        assertEquals(2, parallel.getSrvCtx().getServices(String.class).size());
+    }
+
+    @Test(expected = InstantiationError.class)
+    public void testParallelInstantiationWithUnknownDependency() {
+        InjectorManager manager = new InjectorManager(ServicesWithUnknownDep.class);
+        manager.activateParallelInstantiation();
+        manager.loadAndWait();
+    }
+
+    @Test
+    public void testLoadAsync() throws Exception {
+        ServiceContext ctx = new InjectorManager(Services.class).loadAsync().get(5, TimeUnit.SECONDS);
+        assertEquals(6, ctx.getService("getASixer"));
+
+        CompletableFuture<ServiceContext> failed = new InjectorManager(ServicesWithUnknownDep.class).loadAsync(Runnable::run);
+        assertTrue(failed.isCompletedExceptionally());
+
+        // cancelled before the executor got to it
+        List<Runnable> queued = new ArrayList<>();
+        InjectorManager cancelled = new InjectorManager(Services.class);
+        cancelled.loadAsync(queued::add).cancel(false);
+        queued.get(0).run();
+        assertEquals(null, cancelled.getSrvCtx().getService("getASixer"));
+    }
+
+    @Test
+    public void testLazyServicesInstantiatedOnFirstLookup() {
+        ServicesLazy.EXPENSIVE_CREATED.set(0);
+        ServicesLazy.PROMOTED_CREATED.set(0);
+        LazyLinkedService.CREATED.set(0);
+
+        InjectorManager manager = new InjectorManager(ServicesLazy.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        // lazy services required by eager services are instantiated while loading
+        assertEquals(1, ServicesLazy.PROMOTED_CREATED.get());
+        assertEquals(0, ServicesLazy.EXPENSIVE_CREATED.get());
+        assertEquals(0, LazyLinkedService.CREATED.get());
+        assertEquals(ServicesLazy.NUM_OF_GAME_COMPONENTS + 1, ctx.size());
+
+        LazyLinkedService linked = (LazyLinkedService) ctx.getAssuredService("lazyLinkedService");
+        assertEquals("expensive-eager", linked.getExpensive());
+        assertEquals(1, LazyLinkedService.CREATED.get());
+        assertEquals(1, ServicesLazy.EXPENSIVE_CREATED.get());
+
+        assertSame(linked.getExpensive(), ctx.getService("expensive"));
+        assertEquals(1, ServicesLazy.EXPENSIVE_CREATED.get());
+    }
+
+    @Test
+    public void testLazyServiceInstantiatedOnceAcrossThreads() throws Exception {
+        ServicesLazy.EXPENSIVE_CREATED.set(0);
+
+        InjectorManager manager = new InjectorManager(ServicesLazy.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Object>> lookups = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            lookups.add(executor.submit(() -> ctx.getAssuredService("expensive")));
+        }
+        for (Future<Object> lookup : lookups) {
+            assertEquals("expensive-eager", lookup.get());
+        }
+        executor.shutdown();
+
+        assertEquals(1, ServicesLazy.EXPENSIVE_CREATED.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSupplierInjectionIsDeferred() {
+        ServicesDeferred.REPORTS_CREATED.set(0);
+        InjectorManager manager = new InjectorManager(ServicesDeferred.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        // a Supplier doesn't promote the lazy service it supplies
+        assertEquals(0, ServicesDeferred.REPORTS_CREATED.get());
+        Supplier<String> reporter = (Supplier<String>) ctx.getService("reporter");
+        assertEquals("report", reporter.get());
+        assertSame(reporter.get(), ctx.getService("expensiveReport"));
+        assertEquals(1, ServicesDeferred.REPORTS_CREATED.get());
+
+        // nor does it count as a dependency cycle
+        assertEquals("egg", ((Supplier<String>) ctx.getService("chicken")).get());
+    }
+
+    @Test
+    public void testSupplierCycleWhileCreating() {
+        try {
+            new InjectorManager(ServicesDeferredCycle.class).loadAndWait();
+            fail("a Supplier called while its service is created must fail");
+        } catch (InstantiationError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[a -> b -> a]") || e.getMessage().contains("[b -> a -> b]"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testParallelSupplierCycleWhileCreating() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 20; i++) {
+                InjectorManager manager = new InjectorManager(ServicesDeferredCycle.class);
+                manager.activateParallelInstantiation(executor);
+                try {
+                    manager.loadAndWait();
+                    fail("a Supplier called while its service is created must fail");
+                } catch (InstantiationError e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("cycling dependency detected through a Supplier"));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMultiBindings() {
+        ServicesHandlers.WIRED = null;
+        InjectorManager manager = new InjectorManager(ServicesHandlers.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        // every handler, in registration order, lazy ones included
+        assertEquals("first,second", ctx.getService("dispatch"));
+        assertEquals(2, ctx.getService("handlerCount"));
+        assertEquals(2, ServicesHandlers.WIRED.size());
+        try {
+            ServicesHandlers.WIRED.clear();
+            fail("injected lists must be immutable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = InstantiationError.class)
+    public void testMultiBindingsWithUntypedServices() {
+        // registered like the wiring of an earlier addy-processor, the multibinding can't see it
+        Injector injector = new Injector(ServicesHandlers.class);
+        injector.addGeneratedService("legacy", new String[0], false, addy.annotations.Scope.SINGLETON,
+                (function, dependencies, instance) -> "legacy", null);
+        injector.load();
+    }
+
+    @Test
+    public void testStartupSummaryReporter() {
+        StartupSummaryReporter report = new StartupSummaryReporter();
+        InjectorManager manager = new InjectorManager(ServiceVoid.class);
+        manager.setListener(report);
+        manager.loadAndWait();
+
+        assertEquals(LoadPhase.values().length, report.getPhases().size());
+        // the three @Service methods, the service context is already instantiated
+        assertEquals(3, report.getServices().size());
+        assertTrue(report.getServices().containsKey("getasixer"));
+        assertEquals(1, report.getDepWires().size());
+        assertTrue(report.toString().contains("instantiate_components"));
+    }
+
+    @Test
+    public void testServiceGraphCriticalPath() {
+        ServiceContext ctx = new ServiceContext();
+        ctx.setServiceDependencies("a", new ArrayList<>());
+        ctx.setServiceDependencies("b", Arrays.asList("a"));
+        ctx.setServiceDependencies("c", Arrays.asList("a", "parentService"));
+        ctx.setServiceDependencies("d", Arrays.asList("b", "c"));
+
+        Map<String, Long> timings = new HashMap<>();
+        timings.put("a", 10L);
+        timings.put("b", 1L);
+        timings.put("c", 5L);
+        timings.put("d", 1L);
+        ServiceGraph graph = new ServiceGraph(ctx, timings);
+
+        assertEquals(Arrays.asList("a", "c", "d"), graph.getCriticalPath());
+        assertEquals(16, graph.getCriticalPathNanos());
+        assertEquals(4, graph.getSlack("b"));
+        assertEquals(0, graph.getSlack("C"));
+        assertTrue(graph.toDot().contains("\"a\" -> \"c\" [color=red"));
+        assertTrue(graph.toJson().contains("\"criticalPath\": [\"a\", \"c\", \"d\"]"));
+        assertTrue(graph.toJson().contains("{\"name\": \"b\", \"nanos\": 1, \"slackNanos\": 4, \"dependencies\": [\"a\"]}"));
+    }
+
+    @Test
+    public void testServiceContextFrozenAfterLoad() {
+        InjectorManager manager = new InjectorManager(Services.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        assertTrue(ctx.isFrozen());
+        assertEquals(6, ctx.getService("GETASIXER"));
+        assertEquals(null, ctx.getService("getASeven"));
+
+        // writes after freezing are still visible
+        int size = ctx.size();
+        ctx.setService("Added", "added");
+        assertEquals("added", ctx.getService("added"));
+        assertEquals(size + 1, ctx.size());
+        assertEquals(6, ctx.getService("getASixer"));
+    }
+
+    @Test
+    public void testServiceKeyLookups() {
+        InjectorManager manager = new InjectorManager(Services.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        ServiceKey sixer = ctx.key("getASixer");
+        ServiceKey missing = ctx.key("added");
+        assertEquals(6, ctx.getService(sixer));
+        assertEquals(null, ctx.getService(missing));
+
+        // keys stay valid when the table is copied, and unresolved keys fall back to the name
+        ctx.setService("added", "added");
+        assertEquals(6, ctx.getService(sixer));
+        assertEquals("added", ctx.getService(missing));
+
+        // keys of other contexts are looked up by name
+        assertEquals(null, new ServiceContext().getService(sixer));
+    }
+
+    @Test
+    public void testServicesByType() {
+        InjectorManager manager = new InjectorManager(ServicesTyped.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        // @Inject without a name is resolved by the parameter type
+        assertEquals("hello anders", ctx.getService(StringBuilder.class).toString());
+        assertEquals(Integer.valueOf(12), ctx.getService(Integer.class));
+
+        // superclasses and superinterfaces are indexed, lazy services by their declared type
+        assertSame(ctx.getService("names"), ctx.getService(java.util.RandomAccess.class));
+        assertEquals(1, ctx.getServicesWithInterface(List.class).length);
+        assertEquals(2, ctx.getServices(List.class).size());
+        assertEquals(2, ctx.getServicesWithInterface(List.class).length);
+        assertSame(ctx, ctx.getService(ServiceContext.class));
+        assertEquals("greeting", ctx.getServiceName(StringBuilder.class));
+    }
+
+    @Test
+    public void testAmbiguousServiceTypeLookup() {
+        InjectorManager manager = new InjectorManager(ServicesTyped.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        // names and moreNames are both lists, a lookup by type agrees with @Inject without a name
+        try {
+            ctx.getService(List.class);
+            fail("a lookup of an ambiguous type must fail");
+        } catch (InstantiationError e) {
+            assertTrue(e.getMessage().contains("[names, morenames]"));
+        }
+
+        try {
+            ctx.getServiceName(List.class);
+            fail("a lookup of an ambiguous type must fail");
+        } catch (InstantiationError e) {
+            assertTrue(e.getMessage().contains("[names, morenames]"));
+        }
+    }
+
+    @Test(expected = InstantiationError.class)
+    public void testAmbiguousServiceType() {
+        Injector injector = new Injector(ServicesTyped.class);
+        injector.addServiceInstance("otherGreeting", new StringBuilder());
+        injector.load();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetServicesIsReadOnly() {
+        InjectorManager manager = new InjectorManager(ServiceVoid.class);
+        manager.loadAndWait();
+        manager.getSrvCtx().getServices().put("other", "other");
+    }
+
+    @Test
+    public void testServicesByAnnotation() {
+        ServiceContext ctx = new ServiceContext();
+        AnnotatedService annotated = new AnnotatedService();
+        ctx.setService("annotated", annotated);
+        ctx.setService("plain", "plain");
+        ctx.freeze();
+
+        assertArrayEquals(new Object[]{annotated}, ctx.getServicesWithClassAnnotation(addy.annotations.Service.class));
+        assertArrayEquals(new Object[]{annotated}, ctx.getServicesWithMethodAnnotation(addy.annotations.DepWire.class));
+        assertArrayEquals(new Object[]{annotated}, ctx.getServicesWithMemberAnnotation(Deprecated.class));
+        assertEquals(0, ctx.getServicesWithConstructorAnnotation(addy.annotations.DepWire.class).length);
+        assertEquals(0, ctx.getServicesWithClassAnnotation(Deprecated.class).length);
+
+        // every annotation must be found, at any place
+        assertEquals(1, ctx.getServicesWithAnnotations(Deprecated.class, addy.annotations.Service.class).length);
+        assertEquals(0, ctx.getServicesWithAnnotations(Deprecated.class, addy.annotations.Lazy.class).length);
+        assertEquals(0, ctx.getServicesWithMemberAnnotations(Deprecated.class, addy.annotations.Service.class).length);
+    }
+
+    @Test
+    public void testClosersClosedBeforeTheirDependencies() {
+        ServicesClosers.CLOSED.clear();
+        List<String> timedOut = new CopyOnWriteArrayList<>();
+
+        InjectorManager manager = new InjectorManager(ServicesClosers.class);
+        manager.setListener(new InjectorListener() {
+            @Override
+            public void serviceClosed(final String name, final long nanos, final boolean late) {
+                if (late) {
+                    timedOut.add(name);
+                }
+            }
+        });
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+        ctx.setCloseTimeout(100, TimeUnit.MILLISECONDS);
+        ctx.close();
+
+        // the slow closer is given up on, the pool closes after the flusher that reaches it through the cache
+        assertEquals(Arrays.asList("slow"), timedOut);
+        assertEquals(Arrays.asList("flusher", "pool"), ServicesClosers.CLOSED);
+        ServicesClosers.RELEASE_SLOW.countDown();
+    }
+
+    @Test
+    public void testLazyDependenciesAreClosed() {
+        ServicesLazyClosers.CLOSED.clear();
+        InjectorManager manager = new InjectorManager(ServicesLazyClosers.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        ctx.getService("user");
+        assertTrue(ctx.getServices().containsKey("resource"));
+        ctx.close();
+        assertEquals(Arrays.asList("user", "resource"), ServicesLazyClosers.CLOSED);
+    }
+
+    @Test
+    public void testScopedServices() throws Exception {
+        ServicesScoped.REQUESTS_CREATED.set(0);
+        InjectorManager manager = new InjectorManager(ServicesScoped.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        Object first;
+        try (ServiceScope request = ctx.enterRequestScope()) {
+            ServicesScoped.RequestState state = (ServicesScoped.RequestState) ctx.getService("requestState");
+            assertSame(state, ctx.getService("requestState"));
+            assertSame(ctx.getService("buffer"), state.buffer);
+            assertEquals("req-", state.buffer.toString());
+            state.handled = 1;
+            first = state;
+        }
+
+        // the instance of the exited request is recycled
+        try (ServiceScope request = ctx.enterRequestScope()) {
+            ServicesScoped.RequestState state = (ServicesScoped.RequestState) ctx.getService("requestState");
+            assertSame(first, state);
+            assertEquals(0, state.handled);
+        }
+        assertEquals(1, ServicesScoped.REQUESTS_CREATED.get());
+
+        // every thread has its own thread scoped instance
+        Object buffer = ctx.getService("buffer");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertTrue(buffer != executor.submit(() -> ctx.getService("buffer")).get());
+        executor.shutdown();
+
+        // scoped instances are only available within a scope
+        try {
+            ctx.getService("requestState");
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("enterRequestScope"));
+        }
+    }
+
+    @Test(expected = InstantiationError.class)
+    public void testSingletonDependingOnRequestScope() {
+        InjectorManager manager = new InjectorManager(ServicesWithNarrowerScopeDep.class);
+        manager.loadAndWait();
+    }
+
+    @Test(expected = InstantiationError.class)
+    public void testDepWireDependingOnThreadScope() {
+        InjectorManager manager = new InjectorManager(ServicesWithNarrowerScopeDepWire.class);
+        manager.loadAndWait();
+    }
+
+    @Test
+    public void testChildContextSharesParentServices() {
+        InjectorManager parent = new InjectorManager(Services.class);
+        parent.loadAndWait();
+        InjectorManager child = parent.createChild(ServicesTenant.class);
+        child.loadAndWait();
+        ServiceContext ctx = child.getSrvCtx();
+
+        // the child overrides getAnders, and takes getASixer from the parent
+        assertEquals("tenant6", ctx.getService("tenantGreeting"));
+        assertEquals(6, ServicesTenant.WIRED);
+        assertEquals("tenant", ctx.getService("getAnders"));
+        assertEquals("anders", parent.getSrvCtx().getService("getAnders"));
+        assertSame(parent.getSrvCtx().getService("randomGameLogic"), ctx.getService("randomGameLogic"));
+        assertSame(ctx, ctx.getService(ServiceContext.NAME));
+
+        // only the overlay is held by the child
+        assertEquals(null, ctx.getServices().get("getasixer"));
+        assertEquals(3, ctx.size());
+    }
+
+    @Test
+    public void testWiringPlanSkipsDependencyAnalysis() throws Exception {
+        Path plan = Files.createTempDirectory("addy").resolve("plan.bin");
+
+        InjectorManager first = new InjectorManager(Services.class, ServicesLazy.class);
+        first.activateWiringPlan(plan);
+        first.loadAndWait();
+        assertTrue(Files.exists(plan));
+
+        StartupSummaryReporter report = new StartupSummaryReporter();
+        InjectorManager second = new InjectorManager(Services.class, ServicesLazy.class);
+        second.activateWiringPlan(plan);
+        second.setListener(report);
+        second.loadAndWait();
+
+        assertTrue(!report.getPhases().containsKey(LoadPhase.BRANCH_OUT_DEPENDENCY_TREE));
+        assertEquals(first.getSrvCtx().getServices().keySet(), second.getSrvCtx().getServices().keySet());
+        assertEquals(6, second.getSrvCtx().getService("getASixer"));
+        assertEquals("expensive-eager", second.getSrvCtx().getService("expensive"));
+
+        // a plan for other configuration classes is replaced
+        InjectorManager other = new InjectorManager(Services.class);
+        other.activateWiringPlan(plan);
+        List<LoadPhase> phases = new ArrayList<>();
+        other.setListener(new InjectorListener() {
+            @Override
+            public void phaseFinished(final LoadPhase phase, final long nanos) {
+                phases.add(phase);
+            }
+        });
+        other.loadAndWait();
+        assertTrue(phases.contains(LoadPhase.BRANCH_OUT_DEPENDENCY_TREE));
+        assertEquals(1, Collections.frequency(phases, LoadPhase.LOAD));
+        assertEquals(6, other.getSrvCtx().getService("getASixer"));
+    }
+
+    @Test
+    public void testWiringPlanKeepsServiceTypes() throws Exception {
+        Path plan = Files.createTempDirectory("addy").resolve("plan.bin");
+        InjectorManager first = new InjectorManager(ServicesTyped.class);
+        first.activateWiringPlan(plan);
+        first.loadAndWait();
+        assertTrue(Files.exists(plan));
+
+        // the @DepWire method of ServicesTyped injects the greeting by type
+        StartupSummaryReporter report = new StartupSummaryReporter();
+        InjectorManager second = new InjectorManager(ServicesTyped.class);
+        second.activateWiringPlan(plan);
+        second.setListener(report);
+        second.loadAndWait();
+
+        assertTrue(!report.getPhases().containsKey(LoadPhase.BRANCH_OUT_DEPENDENCY_TREE));
+        assertTrue(report.getDepWires().containsKey(ServicesTyped.class.getName() + "#wire"));
+        assertEquals("hello anders", second.getSrvCtx().getService(StringBuilder.class).toString());
+    }
+
+    @Test
+    public void testReloadReplacesOnlyAffectedServices() {
+        ServicesReloadDependents.CLOSED.clear();
+        InjectorManager manager = new InjectorManager(ServicesReloadable.class, ServicesReloadDependents.class);
+        manager.loadAndWait();
+        ServiceContext ctx = manager.getSrvCtx();
+
+        String version = (String) ctx.getService("version");
+        Object unrelated = ctx.getService("unrelated");
+        ServiceKey label = ctx.key("versionLabel");
+        assertEquals("label " + version, ctx.getService(label).toString());
+
+        Set<String> reloaded = manager.reload(ServicesReloadable.class);
+        assertEquals(new HashSet<>(Arrays.asList("version", "versionlabel")), reloaded);
+
+        String next = (String) ctx.getService("version");
+        assertTrue(!version.equals(next));
+        assertEquals("label " + next, ctx.getService(label).toString());
+        assertSame(unrelated, ctx.getService("unrelated"));
+        assertEquals(Arrays.asList(version), ServicesReloadDependents.CLOSED);
+    }
+
+    @Test
+    public void testUnreachableServicesArePruned() {
+        ServicesPruned.REPORTS_CREATED.set(0);
+        InjectorManager manager = new InjectorManager(ServicesPruned.class);
+        StartupSummaryReporter report = new StartupSummaryReporter();
+        manager.setListener(report);
+        manager.activateRoots("api");
+        manager.loadAndWait();
+
+        assertEquals("api db", manager.getSrvCtx().getService("api"));
+        assertNull(manager.getSrvCtx().getService("report"));
+        assertEquals(0, ServicesPruned.REPORTS_CREATED.get());
+        assertEquals(Arrays.asList("report"), manager.getPrunedServices());
+        assertEquals(Arrays.asList("report"), report.getPruned());
+
+        manager = new InjectorManager(ServicesPruned.class);
+        manager.activateRootClients(ServicesPruned.ReportClient.class);
+        manager.loadAndWait();
+        assertEquals("report db", manager.getSrvCtx().getService("report"));
+        assertEquals(Arrays.asList("api"), manager.getPrunedServices());
+    }
+
+    @Test
+    public void testWarmUpFinishesBeforeLoading() throws Exception {
+        InjectorManager manager = new InjectorManager(ServicesWarmUp.class);
+        StartupSummaryReporter report = new StartupSummaryReporter();
+        manager.setListener(report);
+        ServiceContext ctx = manager.loadAsync().get(10, TimeUnit.SECONDS);
+
+        // a failing warm-up does not fail loading
+        ServicesWarmUp.Parser parser = (ServicesWarmUp.Parser) ctx.getService("parser");
+        assertEquals(50, parser.parsed.get());
+        assertTrue(report.getWarmUps().containsKey("parser"));
+        assertTrue(!report.getWarmUps().containsKey("broken"));
+        assertTrue(report.getFailedWarmUps().get("broken#warmUp") instanceof IllegalStateException);
+        assertTrue(report.toString().contains("failed warm-ups (1 total)"));
+        assertTrue(report.getPhases().containsKey(LoadPhase.WARM_UP));
+    }
+
+    @Test
+    public void testInvalidWarmUpFailsBeforeAnyWarmUp() {
+        ServicesWarmUpInvalid.WARMED_UP.set(0);
+        try {
+            new InjectorManager(ServicesWarmUpInvalid.class).loadAndWait();
+            fail("a @WarmUp method taking parameters must fail loading");
+        } catch (InstantiationError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("must not take parameters"));
+        }
+        assertEquals(0, ServicesWarmUpInvalid.WARMED_UP.get());
+    }
+
     // Check for cycling dependency issues
     //
 
@@ -0,0 +1,12 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+@Service
+public class AnnotatedService {
+    @Deprecated
+    public int field;
+
+    @DepWire
+    public void wire() {}
+}
@@ -0,0 +1,23 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Lazy
+public class LazyLinkedService {
+    public final static AtomicInteger CREATED = new AtomicInteger();
+
+    private final Object expensive;
+
+    @DepWire
+    public LazyLinkedService(@Inject("expensive") Object expensive) {
+        CREATED.incrementAndGet();
+        this.expensive = expensive;
+    }
+
+    public Object getExpensive() {
+        return expensive;
+    }
+}
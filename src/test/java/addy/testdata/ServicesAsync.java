@@ -0,0 +1,42 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ServicesAsync {
+    // both lookups must be in flight at once to complete
+    private final CountDownLatch started = new CountDownLatch(2);
+
+    private CompletableFuture<String> lookup(final String result) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        new Thread(() -> {
+            this.started.countDown();
+            try {
+                future.complete(this.started.await(5, TimeUnit.SECONDS) ? result : "timeout");
+            } catch (InterruptedException e) {
+                future.completeExceptionally(e);
+            }
+        }).start();
+
+        return future;
+    }
+
+    @Service
+    public CompletableFuture<String> host() {
+        return this.lookup("localhost");
+    }
+
+    @Service
+    public CompletableFuture<String> schema() {
+        return this.lookup("v2");
+    }
+
+    @Service
+    public StringBuilder endpoint(@Inject("host") String host, @Inject("schema") String schema) {
+        return new StringBuilder(host).append("/").append(schema);
+    }
+}
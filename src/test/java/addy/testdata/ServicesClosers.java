@@ -0,0 +1,38 @@
+package addy.testdata;
+
+import addy.Closer;
+import addy.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+@Configuration
+public class ServicesClosers {
+    public final static List<String> CLOSED = new CopyOnWriteArrayList<>();
+    public final static CountDownLatch RELEASE_SLOW = new CountDownLatch(1);
+
+    private static Closer closer(final String name) {
+        return () -> CLOSED.add(name);
+    }
+
+    @Service
+    public Closer pool() {
+        return closer("pool");
+    }
+    @Service
+    public Object cache(@Inject("pool") Closer pool) {
+        return "cache";
+    }
+    @Service
+    public Closer flusher(@Inject("cache") Object cache) {
+        return closer("flusher");
+    }
+    @Service
+    public Closer slow(@Inject("pool") Closer pool) {
+        return () -> {
+            RELEASE_SLOW.await();
+            CLOSED.add("slow");
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Configuration
+public class ServicesDeferred {
+    public static final AtomicInteger REPORTS_CREATED = new AtomicInteger(0);
+
+    @Service
+    @Lazy
+    public String expensiveReport() {
+        REPORTS_CREATED.incrementAndGet();
+        return "report";
+    }
+
+    @Service
+    public Supplier<String> reporter(@Inject("expensiveReport") Supplier<String> report) {
+        return report;
+    }
+
+    // chicken and egg only depend on each other through a Supplier
+    @Service
+    public Supplier<String> chicken(@Inject("egg") Supplier<String> egg) {
+        return egg;
+    }
+
+    @Service
+    public String egg(@Inject("chicken") Supplier<String> chicken) {
+        return "egg";
+    }
+}
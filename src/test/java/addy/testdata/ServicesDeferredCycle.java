@@ -0,0 +1,19 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.function.Supplier;
+
+@Configuration
+public class ServicesDeferredCycle {
+    // each one needs the other while it is created, a Supplier doesn't break that cycle
+    @Service
+    public String a(@Inject("b") Supplier<String> b) {
+        return "a" + b.get();
+    }
+
+    @Service
+    public String b(@Inject("a") Supplier<String> a) {
+        return "b" + a.get();
+    }
+}
@@ -0,0 +1,44 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.List;
+
+@Configuration
+public class ServicesHandlers {
+    public static List<Handler> WIRED = null;
+
+    public interface Handler {
+        String handle();
+    }
+
+    @Service
+    public Handler first() {
+        return () -> "first";
+    }
+
+    @Service
+    @Lazy
+    public Handler second() {
+        return () -> "second";
+    }
+
+    @Service
+    public String dispatch(@Inject Handler[] handlers) {
+        StringBuilder handled = new StringBuilder();
+        for (Handler handler : handlers) {
+            handled.append(handled.length() == 0 ? "" : ",").append(handler.handle());
+        }
+        return handled.toString();
+    }
+
+    @Service
+    public Integer handlerCount(@Inject List<Handler> handlers) {
+        return handlers.size();
+    }
+
+    @DepWire
+    public void wire(@Inject List<Handler> handlers) {
+        WIRED = handlers;
+    }
+}
@@ -0,0 +1,34 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@ServiceLinker({LazyLinkedService.class})
+public class ServicesLazy {
+    public final static int NUM_OF_GAME_COMPONENTS = 5;
+    public final static AtomicInteger EXPENSIVE_CREATED = new AtomicInteger();
+    public final static AtomicInteger PROMOTED_CREATED = new AtomicInteger();
+
+    @Service
+    public String eagerName() {
+        return "eager";
+    }
+    @Service
+    @Lazy
+    public Object expensive(@Inject("eagerName") String name) {
+        EXPENSIVE_CREATED.incrementAndGet();
+        return "expensive-" + name;
+    }
+    @Service
+    @Lazy
+    public Object promoted() {
+        PROMOTED_CREATED.incrementAndGet();
+        return "promoted";
+    }
+    @Service
+    public Object needsPromoted(@Inject("promoted") Object promoted) {
+        return promoted;
+    }
+}
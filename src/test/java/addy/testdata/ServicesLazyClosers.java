@@ -0,0 +1,25 @@
+package addy.testdata;
+
+import addy.Closer;
+import addy.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Configuration
+public class ServicesLazyClosers {
+    public final static List<String> CLOSED = new CopyOnWriteArrayList<>();
+
+    @Service
+    @Lazy
+    public Closer resource() {
+        return () -> CLOSED.add("resource");
+    }
+
+    // instantiates the resource through its dependency, not through its own lookup
+    @Service
+    @Lazy
+    public Closer user(@Inject("resource") Closer resource) {
+        return () -> CLOSED.add("user");
+    }
+}
@@ -0,0 +1,36 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ServicesPruned {
+    public static final AtomicInteger REPORTS_CREATED = new AtomicInteger(0);
+
+    @Service
+    public String database() {
+        return "db";
+    }
+
+    @Service
+    public String api(@Inject("database") String database) {
+        return "api " + database;
+    }
+
+    @Service
+    public String report(@Inject("database") String database) {
+        REPORTS_CREATED.incrementAndGet();
+        return "report " + database;
+    }
+
+    @Client
+    public static class ReportClient {
+        public String report;
+
+        @DepWire
+        public void setReport(@Inject("report") String report) {
+            this.report = report;
+        }
+    }
+}
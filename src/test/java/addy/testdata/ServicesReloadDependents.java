@@ -0,0 +1,32 @@
+package addy.testdata;
+
+import addy.Closer;
+import addy.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ServicesReloadDependents {
+    public static final List<String> CLOSED = new ArrayList<>();
+
+    @Service
+    public Closer versionLabel(@Inject("version") String version) {
+        return new Closer() {
+            @Override
+            public void close() {
+                CLOSED.add(version);
+            }
+
+            @Override
+            public String toString() {
+                return "label " + version;
+            }
+        };
+    }
+
+    @Service
+    public Object unrelated() {
+        return new Object();
+    }
+}
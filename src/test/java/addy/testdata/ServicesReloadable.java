@@ -0,0 +1,14 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+@Configuration
+public class ServicesReloadable {
+    public static int VERSION = 0;
+
+    @Service
+    public String version() {
+        VERSION++;
+        return "v" + VERSION;
+    }
+}
@@ -0,0 +1,39 @@
+package addy.testdata;
+
+import addy.Recyclable;
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ServicesScoped {
+    public final static AtomicInteger REQUESTS_CREATED = new AtomicInteger();
+
+    public static class RequestState implements Recyclable {
+        public final StringBuilder buffer;
+        public int handled;
+
+        public RequestState(final StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void recycle() {
+            this.handled = 0;
+        }
+    }
+
+    @Service
+    public String prefix() {
+        return "req-";
+    }
+    @Service(scope = Scope.THREAD)
+    public StringBuilder buffer(@Inject("prefix") String prefix) {
+        return new StringBuilder(prefix);
+    }
+    @Service(scope = Scope.REQUEST)
+    public RequestState requestState(@Inject("buffer") StringBuilder buffer) {
+        REQUESTS_CREATED.incrementAndGet();
+        return new RequestState(buffer);
+    }
+}
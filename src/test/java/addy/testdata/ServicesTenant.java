@@ -0,0 +1,22 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+@Configuration
+public class ServicesTenant {
+    public static int WIRED = 0;
+
+    @Service
+    public String getAnders() {
+        return "tenant";
+    }
+    @Service
+    public String tenantGreeting(@Inject("getASixer") int six, @Inject("getAnders") String name) {
+        return name + six;
+    }
+
+    @DepWire
+    public void wire(@Inject("getASixer") int six) {
+        WIRED = six;
+    }
+}
@@ -0,0 +1,40 @@
+package addy.testdata;
+
+import addy.annotations.*;
+import addy.context.ServiceContext;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+@Configuration
+public class ServicesTyped {
+    public final static int NUM_OF_GAME_COMPONENTS = 4;
+
+    public StringBuilder wired;
+
+    @Service
+    public ArrayList<String> names() {
+        ArrayList<String> names = new ArrayList<>();
+        names.add("anders");
+        return names;
+    }
+    @Service
+    @Lazy
+    public LinkedList<String> moreNames() {
+        return new LinkedList<>();
+    }
+    @Service
+    public StringBuilder greeting(@Inject ArrayList<String> names) {
+        return new StringBuilder("hello ").append(names.get(0));
+    }
+    @Service
+    public Integer greetingLength(@Inject StringBuilder greeting, @Inject("names") List<String> names) {
+        return greeting.length();
+    }
+
+    @DepWire
+    public void wire(@Inject StringBuilder greeting, @Inject ServiceContext ctx) {
+        this.wired = greeting;
+    }
+}
@@ -0,0 +1,39 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ServicesWarmUp {
+    @Service
+    public Parser parser() {
+        return new Parser();
+    }
+
+    @Service
+    public Broken broken() {
+        return new Broken();
+    }
+
+    public static class Parser {
+        public final AtomicInteger parsed = new AtomicInteger(0);
+
+        @WarmUp(iterations = 50, millis = 0)
+        public void warmUp() {
+            this.parse("1");
+        }
+
+        public int parse(final String number) {
+            this.parsed.incrementAndGet();
+            return Integer.parseInt(number);
+        }
+    }
+
+    public static class Broken {
+        @WarmUp
+        public void warmUp() {
+            throw new IllegalStateException("still cold");
+        }
+    }
+}
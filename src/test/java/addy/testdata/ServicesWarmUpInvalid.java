@@ -0,0 +1,31 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ServicesWarmUpInvalid {
+    public static final AtomicInteger WARMED_UP = new AtomicInteger(0);
+
+    @Service
+    public Runnable first() {
+        return new Runnable() {
+            @WarmUp(iterations = 1)
+            public void warmUp() {
+                WARMED_UP.incrementAndGet();
+            }
+
+            @Override
+            public void run() {}
+        };
+    }
+
+    @Service
+    public Object second(@Inject("first") Runnable first) {
+        return new Object() {
+            @WarmUp
+            public void warmUp(final int times) {}
+        };
+    }
+}
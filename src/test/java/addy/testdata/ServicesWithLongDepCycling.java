@@ -0,0 +1,25 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+@Configuration
+public class ServicesWithLongDepCycling {
+    public final static int NUM_OF_GAME_COMPONENTS = 4;
+    // this should throw an instantiation error listing the full cycle
+    @Service
+    public Object cycleA(@Inject("cycleB") Object b) {
+        return null;
+    }
+    @Service
+    public Object cycleB(@Inject("cycleC") Object c) {
+        return null;
+    }
+    @Service
+    public Object cycleC(@Inject("cycleA") Object a) {
+        return null;
+    }
+    @Service
+    public Object dependsOnCycle(@Inject("cycleA") Object a) {
+        return null;
+    }
+}
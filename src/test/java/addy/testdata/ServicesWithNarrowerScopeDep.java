@@ -0,0 +1,15 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+@Configuration
+public class ServicesWithNarrowerScopeDep {
+    @Service(scope = Scope.REQUEST)
+    public Object perRequest() {
+        return new Object();
+    }
+    @Service
+    public Object singleton(@Inject("perRequest") Object perRequest) {
+        return perRequest;
+    }
+}
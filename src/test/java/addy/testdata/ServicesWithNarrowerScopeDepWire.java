@@ -0,0 +1,14 @@
+package addy.testdata;
+
+import addy.annotations.*;
+
+@Configuration
+public class ServicesWithNarrowerScopeDepWire {
+    @Service(scope = Scope.THREAD)
+    public Object perThread() {
+        return new Object();
+    }
+
+    @DepWire
+    public void wire(@Inject("perThread") Object perThread) {}
+}